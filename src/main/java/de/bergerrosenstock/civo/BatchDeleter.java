@@ -0,0 +1,101 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Deletes keys with S3 multi-object delete requests of up to {@value #MAX_BATCH_SIZE} keys, several of them
+ * in parallel.
+ * <p>
+ * Keys are taken lazily from the source, one batch after a permit is available, so arbitrarily long key
+ * sequences are processed with bounded memory. Failures are collected per key; a failed request marks all
+ * keys of its batch as failed without stopping the other batches, as does a request rejected by a client-side
+ * limit or the circuit breaker. Failed requests are retried under the retry policy, since deleting the same keys
+ * again is idempotent. The results are read inside the request executor, since the SDK sends the request lazily
+ * when they are iterated; every attempt therefore builds the request anew.
+ */
+final class BatchDeleter {
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final MinioClient minio;
+    private final String bucket;
+    private final RequestExecutor requests;
+
+    BatchDeleter(MinioClient minio, String bucket, RequestExecutor requests) {
+        this.minio = minio;
+        this.bucket = bucket;
+        this.requests = requests;
+    }
+
+    /**
+     * Deletes the keys and returns the ones that could not be deleted.
+     *
+     * @param deleted receives every batch of keys after its request completed, failed keys included
+     */
+    List<DeleteFailure> delete(Iterable<String> keys, int parallelism, Consumer<List<String>> deleted)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        Queue<DeleteFailure> failures = new ConcurrentLinkedQueue<>();
+        Iterator<String> source = keys.iterator();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (source.hasNext()) {
+                permits.acquire();
+                List<String> batch = new ArrayList<>(MAX_BATCH_SIZE);
+                while (source.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                    batch.add(source.next());
+                }
+                executor.submit(() -> {
+                    try {
+                        deleteBatch(batch, failures);
+                    } finally {
+                        deleted.accept(batch);
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(failures);
+    }
+
+    private void deleteBatch(List<String> batch, Queue<DeleteFailure> failures) {
+        List<DeleteObject> objects = new ArrayList<>(batch.size());
+        for (String key : batch) {
+            objects.add(new DeleteObject(key));
+        }
+        try {
+            failures.addAll(requests.execute(OperationClass.DELETE, () -> {
+                Iterable<Result<DeleteError>> results = minio.removeObjects(
+                        RemoveObjectsArgs.builder()
+                                .bucket(bucket)
+                                .objects(objects)
+                                .build()
+                );
+                List<DeleteFailure> errors = new ArrayList<>();
+                for (Result<DeleteError> result : results) {
+                    DeleteError error = result.get();
+                    errors.add(new DeleteFailure(error.objectName(), error.code(), error.message()));
+                }
+                return errors;
+            }));
+        } catch (Exception e) {
+            String code = e instanceof ErrorResponseException ere ? ere.errorResponse().code() : e.getClass().getSimpleName();
+            for (String key : batch) {
+                failures.add(new DeleteFailure(key, code, e.getMessage()));
+            }
+        }
+    }
+}
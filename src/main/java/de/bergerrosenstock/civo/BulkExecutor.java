@@ -0,0 +1,77 @@
+package de.bergerrosenstock.civo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs storage operations of bulk jobs on virtual threads, obtained with
+ * {@link CivoObjectStorage#bulkExecutor(int)}.
+ * <p>
+ * Every submitted operation gets its own virtual thread, so thousands of blocking calls can be submitted without
+ * sizing a thread pool. A semaphore limits how many of them talk to the storage at the same time; the others wait
+ * on their virtual threads without holding a platform thread. Closing the executor waits for all submitted
+ * operations to finish.
+ */
+public final class BulkExecutor implements AutoCloseable {
+
+    /**
+     * A blocking operation on the storage, e.g. {@code storage -> storage.getObject(key)}.
+     *
+     * @param <T> the result type of the operation
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(CivoObjectStorage storage) throws CivoObjectStorageException;
+    }
+
+    private final CivoObjectStorage storage;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    BulkExecutor(CivoObjectStorage storage, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.storage = storage;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Runs the operation on a new virtual thread as soon as the concurrency limit allows.
+     *
+     * @param operation the operation to run
+     * @param <T>       the result type of the operation
+     * @return a future completing with the result, or exceptionally with the
+     * {@link CivoObjectStorageException} of the operation
+     */
+    public <T> CompletableFuture<T> submit(Operation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                result.completeExceptionally(
+                        new CivoObjectStorageException("Interrupted while waiting for a bulk operation slot", e));
+                return;
+            }
+            try {
+                result.complete(operation.apply(storage));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Waits until all submitted operations are finished and stops accepting new ones.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
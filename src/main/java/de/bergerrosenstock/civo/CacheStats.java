@@ -0,0 +1,24 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * A snapshot of the counters of a cache.
+ *
+ * @param hits          the number of lookups served from the cache
+ * @param misses        the number of lookups that had to go to the object storage
+ * @param evictions     the number of entries removed to stay within the size bound
+ * @param revalidations the number of expired entries confirmed unchanged by a conditional request
+ * @param entries       the number of entries currently cached
+ * @param bytes         the total size of the currently cached object data in bytes
+ */
+public record CacheStats(long hits, long misses, long evictions, long revalidations, long entries, long bytes) {
+
+    /**
+     * Returns the share of lookups served from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
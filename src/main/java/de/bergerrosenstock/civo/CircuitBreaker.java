@@ -0,0 +1,156 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker as configured by {@link CircuitBreakerConfig}.
+ * <p>
+ * Callers take a permit with {@link #acquire()} before sending a request and report its outcome with
+ * {@link #record(long, boolean)}, or {@link #cancel(long)} if the request was not sent after all. A permit
+ * belongs to the state it was taken in; outcomes of requests that complete after a transition are dropped, so
+ * a slow request started before the breaker opened does not count as a trial request. Transitions are passed
+ * to the listener on the thread that caused them, after the breaker's lock is released.
+ */
+final class CircuitBreaker {
+    private final CircuitBreakerConfig config;
+    private final Consumer<CircuitBreakerEvent> listener;
+    private final LongSupplier nanoClock;
+    private final boolean[] window;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private long epoch;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int trials;
+    private int trialSuccesses;
+    private long rejected;
+    private long opened;
+
+    /**
+     * @param listener receives the state transitions, or null
+     */
+    CircuitBreaker(CircuitBreakerConfig config, Consumer<CircuitBreakerEvent> listener) {
+        this(config, listener, System::nanoTime);
+    }
+
+    CircuitBreaker(CircuitBreakerConfig config, Consumer<CircuitBreakerEvent> listener, LongSupplier nanoClock) {
+        this.config = config;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[config.windowSize()];
+    }
+
+    /**
+     * Takes a permit to send a request, moving an open breaker to half-open once its open time is over.
+     *
+     * @return the permit to report the outcome with
+     * @throws RequestRejectedException if the breaker is open or all trial requests are in flight
+     */
+    long acquire() throws RequestRejectedException {
+        CircuitBreakerEvent event = null;
+        long permit;
+        synchronized (this) {
+            if (state == CircuitState.OPEN && nanoClock.getAsLong() - openedAt >= config.openDuration().toNanos()) {
+                event = transition(CircuitState.HALF_OPEN);
+            }
+            if (state == CircuitState.OPEN) {
+                rejected++;
+                throw new RequestRejectedException("Circuit breaker is open");
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (trials >= config.halfOpenRequests()) {
+                    rejected++;
+                    throw new RequestRejectedException(
+                            String.format("Circuit breaker is half-open with %d trial requests in flight", trials));
+                }
+                trials++;
+            }
+            permit = epoch;
+        }
+        publish(event);
+        return permit;
+    }
+
+    /**
+     * Records the outcome of a request sent with the permit.
+     *
+     * @param failure whether the request failed with a transient error
+     */
+    void record(long permit, boolean failure) {
+        CircuitBreakerEvent event = null;
+        synchronized (this) {
+            if (permit != epoch) {
+                return;
+            }
+            if (state == CircuitState.CLOSED) {
+                if (recorded == window.length) {
+                    failures -= window[next] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                window[next] = failure;
+                failures += failure ? 1 : 0;
+                next = (next + 1) % window.length;
+                if (recorded >= config.minimumRequests() && failureRate() >= config.failureRateThreshold()) {
+                    event = transition(CircuitState.OPEN);
+                }
+            } else if (state == CircuitState.HALF_OPEN) {
+                if (failure) {
+                    event = transition(CircuitState.OPEN);
+                } else if (++trialSuccesses >= config.halfOpenRequests()) {
+                    event = transition(CircuitState.CLOSED);
+                }
+            }
+        }
+        publish(event);
+    }
+
+    /**
+     * Returns the permit of a request that was not sent, e.g. because a rate limit rejected it.
+     */
+    synchronized void cancel(long permit) {
+        if (permit == epoch && state == CircuitState.HALF_OPEN) {
+            trials--;
+        }
+    }
+
+    synchronized CircuitBreakerStats stats() {
+        return new CircuitBreakerStats(state, failureRate(), rejected, opened);
+    }
+
+    private double failureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    private CircuitBreakerEvent transition(CircuitState to) {
+        CircuitBreakerEvent event = new CircuitBreakerEvent(state, to, failureRate(), Instant.now());
+        state = to;
+        epoch++;
+        trials = 0;
+        trialSuccesses = 0;
+        if (to == CircuitState.OPEN) {
+            openedAt = nanoClock.getAsLong();
+            opened++;
+        } else if (to == CircuitState.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+        return event;
+    }
+
+    private void publish(CircuitBreakerEvent event) {
+        if (event == null || listener == null) {
+            return;
+        }
+        try {
+            listener.accept(event);
+        } catch (RuntimeException e) {
+            // a failing listener must not fail the request that caused the transition
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the circuit breaker in front of the object storage endpoint.
+ * <p>
+ * While closed, the breaker records the outcomes of the last {@code windowSize} requests; a request failing with
+ * a transient error, such as a timeout, a refused connection or a 5xx response, counts as failure, any other
+ * outcome as success. Once the window holds at least {@code minimumRequests} outcomes and the share of failures
+ * reaches {@code failureRateThreshold}, the breaker opens and requests fail immediately with a
+ * {@link RequestRejectedException} cause. After {@code openDuration} it lets {@code halfOpenRequests} trial
+ * requests through: if all of them succeed it closes again, the first failure opens it for another
+ * {@code openDuration}.
+ *
+ * @param failureRateThreshold the share of failed requests that opens the breaker, between 0 and 1
+ * @param windowSize           the number of most recent requests the failure rate is computed over
+ * @param minimumRequests      the number of recorded requests needed before the breaker can open
+ * @param openDuration         how long the breaker stays open before it sends trial requests
+ * @param halfOpenRequests     the number of trial requests that must succeed to close the breaker
+ */
+public record CircuitBreakerConfig(double failureRateThreshold, int windowSize, int minimumRequests,
+                                   Duration openDuration, int halfOpenRequests) {
+
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MINIMUM_REQUESTS = 10;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final int DEFAULT_HALF_OPEN_REQUESTS = 3;
+
+    public CircuitBreakerConfig {
+        Objects.requireNonNull(openDuration, "openDuration");
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be above 0 and at most 1");
+        }
+        if (minimumRequests < 1 || windowSize < minimumRequests) {
+            throw new IllegalArgumentException("sizes must satisfy 1 <= minimumRequests <= windowSize");
+        }
+        if (openDuration.isNegative()) {
+            throw new IllegalArgumentException("openDuration must not be negative");
+        }
+        if (halfOpenRequests < 1) {
+            throw new IllegalArgumentException("halfOpenRequests must be at least 1");
+        }
+    }
+
+    /**
+     * Returns the default settings: open when half of the last 50 requests failed, once at least 10 were
+     * recorded, stay open for 30 s and close after 3 successful trial requests.
+     *
+     * @return the default circuit breaker settings
+     */
+    public static CircuitBreakerConfig defaults() {
+        return new CircuitBreakerConfig(DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_REQUESTS,
+                DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_REQUESTS);
+    }
+}
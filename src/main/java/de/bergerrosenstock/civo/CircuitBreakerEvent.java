@@ -0,0 +1,15 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Instant;
+
+/**
+ * A state transition of the circuit breaker, passed to the listener registered with
+ * {@link CivoObjectStorage.Builder#circuitBreaker(CircuitBreakerConfig, java.util.function.Consumer)}.
+ *
+ * @param from        the state before the transition
+ * @param to          the state after the transition
+ * @param failureRate the failure rate of the recorded requests at the time of the transition
+ * @param time        when the transition happened
+ */
+public record CircuitBreakerEvent(CircuitState from, CircuitState to, double failureRate, Instant time) {
+}
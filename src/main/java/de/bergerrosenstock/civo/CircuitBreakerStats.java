@@ -0,0 +1,12 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * A snapshot of the circuit breaker.
+ *
+ * @param state       the current state
+ * @param failureRate the share of failures among the recorded requests, 0 if none were recorded
+ * @param rejected    the number of requests failed without being sent because the breaker was open
+ * @param opened      the number of times the breaker opened
+ */
+public record CircuitBreakerStats(CircuitState state, double failureRate, long rejected, long opened) {
+}
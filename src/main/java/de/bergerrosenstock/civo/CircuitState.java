@@ -0,0 +1,19 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * The states of the circuit breaker in front of the object storage endpoint.
+ */
+public enum CircuitState {
+    /**
+     * Requests are sent and their outcomes are recorded.
+     */
+    CLOSED,
+    /**
+     * Requests fail immediately without being sent.
+     */
+    OPEN,
+    /**
+     * A limited number of trial requests are sent to probe whether the endpoint recovered.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,108 @@
+package de.bergerrosenstock.civo;
+
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link MinioAsyncClient} that exposes the multipart upload and single-page listing calls the SDK only offers to
+ * subclasses.
+ */
+class CivoMinioAsyncClient extends MinioAsyncClient {
+
+    /**
+     * One page of a listing.
+     *
+     * @param items             the objects of the page, followed by its common prefixes as directory items
+     * @param continuationToken the token to request the next page with, or null if this is the last page
+     */
+    record ListPage(List<Item> items, String continuationToken) {
+    }
+
+    CivoMinioAsyncClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * Starts a multipart upload and returns its upload id.
+     */
+    String createUpload(String bucket, String region, String key, Multimap<String, String> headers)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        return await(createMultipartUploadAsync(bucket, region, key, headers, null)).result().uploadId();
+    }
+
+    /**
+     * Uploads a single part and returns its ETag.
+     */
+    String uploadPart(String bucket, String region, String key, String uploadId, int partNumber, byte[] data)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        return await(uploadPartAsync(bucket, region, key, data, data.length, uploadId, partNumber, null, null)).etag();
+    }
+
+    /**
+     * Completes a multipart upload from the given parts, ordered by part number.
+     */
+    ObjectWriteResponse completeUpload(String bucket, String region, String key, String uploadId, Part[] parts)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        return await(completeMultipartUploadAsync(bucket, region, key, uploadId, parts, null, null));
+    }
+
+    /**
+     * Aborts a multipart upload so that the server discards all uploaded parts.
+     */
+    void abortUpload(String bucket, String region, String key, String uploadId)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        await(abortMultipartUploadAsync(bucket, region, key, uploadId, null, null));
+    }
+
+    /**
+     * Lists one page of keys with a ListObjectsV2 request.
+     *
+     * @param delimiter         the delimiter that groups keys into common prefixes, or null to list recursively
+     * @param continuationToken the token returned with the previous page, or null for the first page
+     */
+    ListPage listPage(String bucket, String region, String prefix, String delimiter, String continuationToken,
+                      int maxKeys) throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        ListBucketResultV2 result = await(listObjectsV2Async(bucket, region, delimiter, null, null, maxKeys, prefix,
+                continuationToken, false, false, null, null)).result();
+        List<Item> items = new ArrayList<>(result.contents());
+        for (Prefix commonPrefix : result.commonPrefixes()) {
+            items.add(commonPrefix.toItem());
+        }
+        return new ListPage(items, result.isTruncated() ? result.nextContinuationToken() : null);
+    }
+
+    /**
+     * Waits for the future and rethrows the SDK exception it completed with.
+     */
+    static <T> T await(CompletableFuture<T> future)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof MinioException me) throw me;
+            if (cause instanceof IOException ioe) throw ioe;
+            if (cause instanceof GeneralSecurityException gse) throw gse;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException(cause);
+        }
+    }
+}
@@ -2,22 +2,80 @@ package de.bergerrosenstock.civo;
 
 import io.minio.*;
 import io.minio.errors.*;
+import io.minio.http.HttpUtils;
 import io.minio.http.Method;
+import io.minio.messages.Item;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 public class CivoObjectStorage {
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int DEFAULT_DELETE_PARALLELISM = 4;
+    private static final int LIST_PAGE_SIZE = ObjectLister.PAGE_SIZE;
+    private static final int ORDERED_LIST_BUFFER_PAGES = 4;
+    private static final Comparator<String> KEY_ORDER = ObjectLister.KEY_ORDER;
+
+    private final Builder settings;
+    private final Clients clients;
     private final MinioClient minio;
     private final String bucket;
     private final String endpoint;
+    private final MultipartConfig multipartConfig;
+    private final MultipartUploader uploader;
+    private final RangedDownloader downloader;
+    private final BatchDeleter batchDeleter;
+    private final ObjectLister lister;
+    private final RequestExecutor requests;
+    private final StorageMetrics metrics;
+    private final Hedger hedger;
+    private final ObjectCache cache;
+    private final DiskCache diskCache;
+    private final StatCache statCache;
+    private final CivoObjectStorageAsync async;
+    private final SingleFlight<StoredObject> objectFlights = new SingleFlight<>(StoredObject::copy);
+    private final SingleFlight<StatObjectResponse> statFlights = new SingleFlight<>(stat -> stat);
 
     public static final String ENDPOINT_FRA_1 = "https://objectstore.fra1.civo.com";
+    public static final String REGION_FRA_1 = "FRA1";
+    private static final String FRA_1_HOST = URI.create(ENDPOINT_FRA_1).getHost();
 
     public CivoObjectStorage(
             String endpoint,
@@ -25,14 +83,175 @@ public class CivoObjectStorage {
             String secretKey,
             String bucket
     ) {
-        this.endpoint = endpoint;
-        this.bucket = bucket;
-        this.minio = MinioClient.builder()
+        this(builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
+                .bucket(bucket));
+    }
+
+    private CivoObjectStorage(Builder builder) {
+        this(builder, Clients.connect(builder));
+    }
+
+    private CivoObjectStorage(Builder builder, Clients clients) {
+        this.settings = builder;
+        this.clients = clients;
+        this.endpoint = builder.endpoint;
+        this.bucket = builder.bucket;
+        this.multipartConfig = builder.multipartConfig;
+        this.minio = clients.minio();
+        CivoMinioAsyncClient asyncMinio = clients.asyncMinio();
+        this.requests = new RequestExecutor(new RetryPolicy(builder.retryConfig), clients.limiter(),
+                builder.rateLimits.isEmpty() ? null : new RateLimiter(builder.rateLimits), clients.breaker());
+        this.uploader = new MultipartUploader(asyncMinio, bucket, builder.region(), multipartConfig, requests);
+        this.downloader = new RangedDownloader(minio, bucket, builder.rangedDownloadConfig, requests);
+        this.batchDeleter = new BatchDeleter(minio, bucket, requests);
+        this.lister = new ObjectLister(asyncMinio, bucket, builder.region(), requests);
+        this.metrics = builder.metrics;
+        this.hedger = builder.hedgeConfig != null ? new Hedger(builder.hedgeConfig) : null;
+        this.cache = builder.objectCacheConfig != null ? new ObjectCache(builder.objectCacheConfig) : null;
+        this.diskCache = builder.diskCacheConfig != null ? openDiskCache(builder.diskCacheConfig, endpoint + "/" + bucket) : null;
+        this.statCache = builder.statCacheConfig != null ? new StatCache(builder.statCacheConfig) : null;
+        this.async = new CivoObjectStorageAsync(asyncMinio, bucket, multipartConfig.partSize(), cache, statCache,
+                this::invalidate);
+    }
+
+    /**
+     * The SDK clients, the concurrency limiter and the circuit breaker of an instance, shared with the bucket
+     * views created from it.
+     */
+    private record Clients(MinioClient minio, CivoMinioAsyncClient asyncMinio, ConcurrencyLimiter limiter,
+                           CircuitBreaker breaker) {
+        static Clients connect(Builder builder) {
+            OkHttpClient httpClient = builder.httpClient != null
+                    ? builder.httpClient
+                    : newHttpClient(builder.httpClientConfig);
+            MinioClient.Builder minio = MinioClient.builder()
+                    .endpoint(builder.endpoint)
+                    .credentials(builder.accessKey, builder.secretKey)
+                    .httpClient(httpClient);
+            MinioAsyncClient.Builder asyncMinio = MinioAsyncClient.builder()
+                    .endpoint(builder.endpoint)
+                    .credentials(builder.accessKey, builder.secretKey)
+                    .httpClient(httpClient);
+            String region = builder.region();
+            if (region != null) {
+                minio.region(region);
+                asyncMinio.region(region);
+            }
+            ConcurrencyLimiter limiter = builder.concurrencyLimitConfig != null
+                    ? new ConcurrencyLimiter(builder.concurrencyLimitConfig)
+                    : null;
+            CircuitBreaker breaker = builder.circuitBreakerConfig != null
+                    ? new CircuitBreaker(builder.circuitBreakerConfig, builder.circuitBreakerListener)
+                    : null;
+            return new Clients(minio.build(), new CivoMinioAsyncClient(asyncMinio.build()), limiter, breaker);
+        }
+    }
+
+    private static OkHttpClient newHttpClient(HttpClientConfig config) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.maxRequests());
+        dispatcher.setMaxRequestsPerHost(config.maxRequestsPerHost());
+        return HttpUtils.newDefaultHttpClient(
+                        config.connectTimeout().toMillis(), config.writeTimeout().toMillis(), config.readTimeout().toMillis())
+                .newBuilder()
+                .connectionPool(new ConnectionPool(
+                        config.maxIdleConnections(), config.keepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
                 .build();
     }
 
+    private static DiskCache openDiskCache(DiskCacheConfig config, String namespace) {
+        try {
+            return new DiskCache(config, namespace);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Error while opening disk cache in %s", config.directory()), e);
+        }
+    }
+
+    /**
+     * Returns a builder for a storage instance with non-default settings.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the non-blocking API of this storage instance, which shares its connections and caches. Its
+     * requests are not retried and bypass the concurrency limiter, rate limits, circuit breaker and metrics.
+     *
+     * @return the asynchronous counterpart of this instance
+     */
+    public CivoObjectStorageAsync async() {
+        return async;
+    }
+
+    /**
+     * Returns a storage instance for another bucket that shares the SDK clients, HTTP connection pool and
+     * dispatcher of this instance, so that many buckets can be served without a client per bucket.
+     * The view uses the same settings as this instance and gets its own object and stat caches of the
+     * configured sizes; a disk cache is not created for views, since its directory belongs to this instance.
+     * Creating a view opens no connections and is cheap.
+     *
+     * @param bucket the bucket name of the view
+     * @return a storage instance working on the given bucket
+     */
+    public CivoObjectStorage forBucket(String bucket) {
+        Builder view = settings.copy();
+        view.bucket = Objects.requireNonNull(bucket, "bucket");
+        view.diskCacheConfig = null;
+        return new CivoObjectStorage(view, clients);
+    }
+
+    /**
+     * Returns an executor for bulk jobs that runs each submitted operation on its own virtual thread,
+     * with at most {@code concurrency} operations running against the storage at the same time.
+     * The executor should be closed with try-with-resources, which waits for all submitted operations.
+     *
+     * @param concurrency the maximum number of operations running at the same time
+     * @return a new bulk executor on this instance
+     */
+    public BulkExecutor bulkExecutor(int concurrency) {
+        return new BulkExecutor(this, concurrency);
+    }
+
+    /**
+     * Opens connections to the endpoint ahead of the first requests by sending that many bucket requests at
+     * the same time. The connections stay in the pool as long as the configured keep-alive and the maximum
+     * number of idle connections allow.
+     *
+     * @param connections the number of connections to open
+     * @throws CivoObjectStorageException if a request fails or the thread is interrupted
+     */
+    public void warmUp(int connections) throws CivoObjectStorageException {
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections must be at least 1");
+        }
+        BucketExistsArgs args = BucketExistsArgs.builder()
+                .bucket(bucket)
+                .build();
+        List<Future<Boolean>> requests = new ArrayList<>(connections);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                requests.add(executor.submit(() -> minio.bucketExists(args)));
+            }
+        }
+        try {
+            for (Future<Boolean> request : requests) {
+                request.get();
+            }
+        } catch (ExecutionException e) {
+            throw new CivoObjectStorageException(String.format("Error while warming up connections to %s", endpoint),
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CivoObjectStorageException("Interrupted while warming up connections", e);
+        }
+    }
+
     /**
      * Returns the bucket name configured for this storage instance.
      *
@@ -66,6 +285,7 @@ public class CivoObjectStorage {
     /**
      * Uploads a byte array to the object storage with the specified key, content type,
      * and optional user-defined metadata.
+     * Arrays larger than the configured part size are uploaded as parallel multipart upload.
      *
      * @param key         the key to associate with the object in the storage
      * @param bytes       the byte array representing the data to store
@@ -74,25 +294,26 @@ public class CivoObjectStorage {
      * @throws CivoObjectStorageException if an error occurs during the upload process
      */
     public ObjectWriteResponse putBytes(String key, byte[] bytes, String contentType, Map<String, String> userMeta) throws CivoObjectStorageException {
-        try (ByteArrayInputStream in = new ByteArrayInputStream(bytes)) {
-            PutObjectArgs.Builder b = PutObjectArgs.builder()
-                    .bucket(bucket)
-                    .object(key)
-                    .stream(in, bytes.length, -1)
-                    .contentType(contentType);
-            if (userMeta != null && !userMeta.isEmpty()) {
-                b.userMetadata(userMeta);
+        return measure(StorageOperation.PUT_BYTES, bytes.length, response -> 0, () -> {
+            try {
+                if (bytes.length > multipartConfig.partSize()) {
+                    return uploader.upload(key, new ByteArrayInputStream(bytes), bytes.length, contentType, userMeta);
+                }
+                return requests.execute(OperationClass.WRITE, bytes.length, () -> minio.putObject(
+                        putArgs(key, new ByteArrayInputStream(bytes), bytes.length, contentType, userMeta)), () -> {
+                });
+            } catch (MinioException | IOException | GeneralSecurityException e) {
+                throw new CivoObjectStorageException(String.format("Error while put bytes to key %s", key), e);
+            } finally {
+                invalidate(key);
             }
-            return minio.putObject(b.build());
-        } catch (IOException | ErrorResponseException | InsufficientDataException | InternalException |
-                 InvalidKeyException | InvalidResponseException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
-            throw new CivoObjectStorageException(String.format("Error while put bytes to key %s", key), e);
-        }
+        });
     }
 
     /**
      * Uploads an input stream to the object storage with the specified key and content type.
+     * Streams larger than the configured part size, or of unknown size, are uploaded as parallel multipart upload.
+     * Smaller streams are only retried after transient failures if they support {@link InputStream#mark(int)}.
      *
      * @param key         the key to associate with the object in the storage
      * @param inputStream the input stream to upload
@@ -101,18 +322,68 @@ public class CivoObjectStorage {
      * @throws CivoObjectStorageException if an error occurs during the upload process
      */
     public ObjectWriteResponse putStream(String key, InputStream inputStream, long size, String contentType) throws CivoObjectStorageException {
+        return measure(StorageOperation.PUT_STREAM, Math.max(size, 0), response -> 0, () -> {
+            try {
+                if (size < 0 || size > multipartConfig.partSize()) {
+                    return uploader.upload(key, inputStream, size, contentType, null);
+                }
+                boolean replayable = inputStream.markSupported();
+                if (replayable) {
+                    inputStream.mark((int) size + 1);
+                }
+                return requests.execute(OperationClass.WRITE, size,
+                        () -> minio.putObject(putArgs(key, inputStream, size, contentType, null)),
+                        replayable ? inputStream::reset : null);
+            } catch (MinioException | IOException | GeneralSecurityException e) {
+                throw new CivoObjectStorageException(String.format("Error while put stream to key %s", key), e);
+            } finally {
+                invalidate(key);
+            }
+        });
+    }
+
+    private PutObjectArgs putArgs(String key, InputStream in, long size, String contentType,
+                                  Map<String, String> userMeta) {
+        PutObjectArgs.Builder b = PutObjectArgs.builder()
+                .bucket(bucket)
+                .object(key)
+                .stream(in, size, multipartConfig.partSize())
+                .contentType(contentType);
+        if (userMeta != null && !userMeta.isEmpty()) {
+            b.userMetadata(userMeta);
+        }
+        return b.build();
+    }
+
+    /**
+     * Uploads a file to the object storage with the specified key and content type.
+     *
+     * @param key         the key to associate with the object in the storage
+     * @param file        the file to upload
+     * @param contentType the MIME type of the stored object
+     * @throws CivoObjectStorageException if an error occurs while reading the file or during the upload process
+     */
+    public ObjectWriteResponse uploadFile(String key, Path file, String contentType) throws CivoObjectStorageException {
+        return uploadFile(key, file, contentType, null);
+    }
+
+    /**
+     * Uploads a file to the object storage with the specified key, content type,
+     * and optional user-defined metadata.
+     * Files larger than the configured part size are uploaded as parallel multipart upload whose parts are read
+     * with positional {@link FileChannel} reads, so each part is read independently and can be re-read on retry.
+     *
+     * @param key         the key to associate with the object in the storage
+     * @param file        the file to upload
+     * @param contentType the MIME type of the stored object
+     * @param userMeta    a map of user-defined metadata to associate with the object, can be null
+     * @throws CivoObjectStorageException if an error occurs while reading the file or during the upload process
+     */
+    public ObjectWriteResponse uploadFile(String key, Path file, String contentType, Map<String, String> userMeta) throws CivoObjectStorageException {
         try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(bucket)
-                    .object(key)
-                    .stream(inputStream, size, -1)
-                    .contentType(contentType)
-                    .build();
-            return minio.putObject(args);
-        } catch (IOException | ErrorResponseException | InsufficientDataException | InternalException |
-                 InvalidKeyException | InvalidResponseException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
-            throw new CivoObjectStorageException(String.format("Error while put stream to key %s", key), e);
+            return uploader.uploadFile(key, file, contentType, userMeta);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -123,79 +394,481 @@ public class CivoObjectStorage {
      * @throws CivoObjectStorageException if an error occurs while deleting the object
      */
     public void deleteObject(String key) throws CivoObjectStorageException {
+        measure(StorageOperation.DELETE_OBJECT, 0, result -> 0, () -> {
+            try {
+                requests.execute(OperationClass.DELETE, () -> {
+                    minio.removeObject(
+                            RemoveObjectArgs.builder()
+                                    .bucket(bucket)
+                                    .object(key)
+                                    .build()
+                    );
+                    return null;
+                });
+            } catch (MinioException | IOException | GeneralSecurityException e) {
+                throw new CivoObjectStorageException(String.format("Error while deleting key %s from storage", key), e);
+            } finally {
+                invalidate(key);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes many objects with multi-object delete requests of up to 1000 keys, running four requests in parallel.
+     *
+     * @param keys the keys identifying the objects to delete, consumed lazily
+     * @return the keys that could not be deleted, empty if all were deleted
+     * @throws CivoObjectStorageException if the thread is interrupted while deleting
+     */
+    public List<DeleteFailure> deleteObjects(Iterable<String> keys) throws CivoObjectStorageException {
+        return deleteObjects(keys, DEFAULT_DELETE_PARALLELISM);
+    }
+
+    /**
+     * Deletes many objects with multi-object delete requests of up to 1000 keys.
+     * Failures are reported per key; a failing request does not stop the remaining batches.
+     *
+     * @param keys        the keys identifying the objects to delete, consumed lazily
+     * @param parallelism the maximum number of delete requests in flight
+     * @return the keys that could not be deleted, empty if all were deleted
+     * @throws CivoObjectStorageException if the thread is interrupted while deleting
+     */
+    public List<DeleteFailure> deleteObjects(Iterable<String> keys, int parallelism) throws CivoObjectStorageException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
         try {
-            minio.removeObject(
-                    RemoveObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(key)
-                            .build()
-            );
-        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
-                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
-            throw new CivoObjectStorageException(String.format("Error while deleting key %s from storage", key), e);
+            return batchDeleter.delete(keys, parallelism, batch -> batch.forEach(this::invalidate));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CivoObjectStorageException("Interrupted while deleting objects from storage", e);
         }
     }
 
     /**
      * Retrieves an object from the storage using the specified key.
+     * Content type, ETag and user metadata are taken from the GET response headers,
+     * so the object is fetched with a single request.
+     * If an object cache is configured, cached objects are served without a request, and expired cached
+     * objects are revalidated with a conditional GET that skips the body transfer when the ETag still matches.
+     * Concurrent calls for the same key that miss the cache share a single request and receive copies of its result.
      *
      * @param key the key identifying the object to retrieve
      * @return a StoredObject containing the data, content type, and metadata of the retrieved object
      * @throws CivoObjectStorageException if an error occurs while retrieving the object
      */
     public StoredObject getObject(String key) throws CivoObjectStorageException {
+        return measure(StorageOperation.GET_OBJECT, 0, object -> object.data().length, () -> {
+            if (cache != null) {
+                StoredObject cached = cache.get(key);
+                if (cached != null) {
+                    return cached.copy();
+                }
+            }
+            return objectFlights.execute(key, () -> getUncached(key));
+        });
+    }
+
+    /**
+     * Loads an object that is not fresh in the in-memory cache and stores the result there. The result may be
+     * the cached instance itself, since the single flight hands every caller a copy of it.
+     */
+    private StoredObject getUncached(String key) throws CivoObjectStorageException {
+        if (cache == null) {
+            return loadObject(key, null);
+        }
+        long generation = cache.generation();
+        StoredObject stale = cache.getStale(key);
+        StoredObject object = loadObject(key, stale);
+        if (object == stale) {
+            cache.refresh(key, stale, generation);
+            return stale;
+        }
+        cache.put(key, object, generation);
+        return object;
+    }
+
+    /**
+     * Loads an object from the disk cache or, if it is not cached there or expired, from the object storage.
+     *
+     * @param stale an expired object from the in-memory cache to revalidate, or null
+     * @return the object, or {@code stale} itself if the server confirmed that it is unchanged
+     */
+    private StoredObject loadObject(String key, StoredObject stale) throws CivoObjectStorageException {
+        if (diskCache == null) {
+            StoredObject object = fetchObject(key, stale != null ? stale.etag() : null);
+            return object != null ? object : stale;
+        }
+        long generation = diskCache.generation();
+        DiskCache.Entry entry = diskCache.get(key);
+        if (entry != null && diskCache.isFresh(entry)) {
+            StoredObject cached = readCached(entry);
+            if (cached != null) {
+                return cached;
+            }
+            entry = null;
+        }
+        String etag = entry != null ? entry.etag() : stale != null ? stale.etag() : null;
+        StoredObject object = fetchObject(key, etag);
+        if (object == null && entry == null) {
+            storeCached(key, stale, generation);
+            return stale;
+        }
+        if (object == null) {
+            refreshCached(entry, generation);
+            if (stale != null && entry.etag().equals(stale.etag())) {
+                return stale;
+            }
+            StoredObject cached = readCached(entry);
+            return cached != null ? cached : fetchObject(key);
+        }
+        storeCached(key, object, generation);
+        return object;
+    }
+
+    /**
+     * Retrieves an object only if its ETag differs from the given one, using a conditional GET with
+     * {@code If-None-Match}. An unchanged object is answered by the server without transferring the body.
+     *
+     * @param key  the key identifying the object to retrieve
+     * @param etag the ETag of the copy the caller already holds
+     * @return the object if it changed, or empty if it still has the given ETag
+     * @throws CivoObjectStorageException if an error occurs while retrieving the object
+     */
+    public Optional<StoredObject> getObjectIfChanged(String key, String etag) throws CivoObjectStorageException {
+        return Optional.ofNullable(fetchObject(key, Objects.requireNonNull(etag, "etag")));
+    }
+
+    private StoredObject fetchObject(String key) throws CivoObjectStorageException {
+        return fetchObject(key, null);
+    }
+
+    /**
+     * Fetches an object, conditionally if {@code notMatchETag} is given.
+     *
+     * @return the object, or null if the server answered 304 Not Modified
+     */
+    private StoredObject fetchObject(String key, String notMatchETag) throws CivoObjectStorageException {
         try {
-            StatObjectResponse stat = minio.statObject(
-                    StatObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(key)
-                            .build()
-            );
-            String contentType = stat.contentType();
-            Map<String, String> userMeta = stat.userMetadata();
+            StoredObject object = requests.execute(OperationClass.READ, () -> {
+                try (GetObjectResponse response = sendGet(getArgs(key, notMatchETag))) {
+                    StatObjectResponse stat = statOf(response);
+                    byte[] data = readBody(response, stat.size());
+                    return new StoredObject(data, stat.contentType(), stat.userMetadata(), stat.etag());
+                }
+            });
+            requests.charge(OperationClass.READ, object.data().length);
+            return object;
+        } catch (ErrorResponseException e) {
+            if (notMatchETag != null && isNotModified(e)) {
+                return null;
+            }
+            throw new CivoObjectStorageException(String.format("Error while get object %s with key", key), e);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            throw new CivoObjectStorageException(String.format("Error while get object %s with key", key), e);
+        }
+    }
 
-            try (InputStream is = minio.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(key)
-                            .build()
-            )) {
-                byte[] data = is.readAllBytes();
-                return new StoredObject(data, contentType, userMeta);
+    /**
+     * Opens the GET response of an object, conditionally if {@code notMatchETag} is given.
+     *
+     * @return the open response, or null if the server answered 304 Not Modified
+     */
+    private GetObjectResponse openObject(String key, String notMatchETag) throws CivoObjectStorageException {
+        try {
+            GetObjectResponse response = requests.execute(OperationClass.READ,
+                    () -> sendGet(getArgs(key, notMatchETag)));
+            requests.charge(OperationClass.READ, statOf(response).size());
+            return response;
+        } catch (ErrorResponseException e) {
+            if (notMatchETag != null && isNotModified(e)) {
+                return null;
             }
-        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
-                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
+            throw new CivoObjectStorageException(String.format("Error while get object %s with key", key), e);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
             throw new CivoObjectStorageException(String.format("Error while get object %s with key", key), e);
         }
     }
 
+    /**
+     * Sends a GET request, hedged if hedging is configured. The hedge takes its own rate limit and concurrency
+     * limiter permits, without waiting for them; it is skipped if none are available.
+     */
+    private GetObjectResponse sendGet(GetObjectArgs args) throws MinioException, IOException, GeneralSecurityException {
+        if (hedger == null) {
+            return minio.getObject(args);
+        }
+        CompletableFuture<GetObjectResponse> response = hedger.send(() -> sendGetAsync(args),
+                () -> requests.tryStart(OperationClass.READ, () -> sendGetAsync(args)),
+                CivoObjectStorage::closeQuietly);
+        try {
+            return CivoMinioAsyncClient.await(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.thenAccept(CivoObjectStorage::closeQuietly);
+            throw new InterruptedIOException("Interrupted while waiting for the GET response");
+        }
+    }
+
+    private CompletableFuture<GetObjectResponse> sendGetAsync(GetObjectArgs args) {
+        try {
+            return clients.asyncMinio().getObject(args);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void closeQuietly(GetObjectResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+            // the response of an abandoned request is only closed to release its connection
+        }
+    }
+
+    private GetObjectArgs getArgs(String key, String notMatchETag) {
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(key);
+        if (notMatchETag != null) {
+            args.notMatchETag(notMatchETag);
+        }
+        return args.build();
+    }
+
+    private static boolean isNotModified(ErrorResponseException e) {
+        return (e.response() != null && e.response().code() == 304)
+                || "NotModified".equals(e.errorResponse().code());
+    }
+
+    /**
+     * Opens an object for incremental reading without buffering its data in memory.
+     * Content type, ETag and user metadata are available immediately from the GET response headers.
+     * The returned handle holds an HTTP connection and must be closed by the caller.
+     * If a disk cache is configured, the object is served from or first written to the disk cache and
+     * the handle reads the cached file.
+     *
+     * @param key the key identifying the object to retrieve
+     * @return an open handle on the object data and metadata
+     * @throws CivoObjectStorageException if an error occurs while opening the object
+     */
+    public StoredObjectStream getObjectStream(String key) throws CivoObjectStorageException {
+        if (diskCache == null) {
+            GetObjectResponse response = openObject(key, null);
+            return new StoredObjectStream(response, statOf(response));
+        }
+        long generation = diskCache.generation();
+        DiskCache.Entry entry = diskCache.get(key);
+        if (entry != null && diskCache.isFresh(entry)) {
+            StoredObjectStream cached = openCached(entry);
+            if (cached != null) {
+                return cached;
+            }
+            entry = null;
+        }
+        GetObjectResponse response = openObject(key, entry != null ? entry.etag() : null);
+        if (response == null) {
+            refreshCached(entry, generation);
+            StoredObjectStream cached = openCached(entry);
+            if (cached != null) {
+                return cached;
+            }
+            response = openObject(key, null);
+        }
+        StatObjectResponse stat = statOf(response);
+        if (!diskCache.fits(stat.size())) {
+            return new StoredObjectStream(response, stat);
+        }
+        try (GetObjectResponse body = response) {
+            DiskCache.Entry stored = diskCache.put(key, body, stat.etag(), stat.contentType(), stat.userMetadata(), generation);
+            StoredObjectStream cached = stored != null ? openCached(stored) : null;
+            if (cached != null) {
+                return cached;
+            }
+        } catch (IOException e) {
+            // the disk cache is best effort, the object is streamed from the object storage instead
+        }
+        GetObjectResponse uncached = openObject(key, null);
+        return new StoredObjectStream(uncached, statOf(uncached));
+    }
+
+    /**
+     * Retrieves an object by fetching byte ranges of it concurrently and assembling them in a preallocated array.
+     * The object size is taken from a stat request that bypasses the stat cache, since every range is requested
+     * with the ETag of that stat as condition; range size and parallelism are configured with
+     * {@link Builder#rangedDownload(RangedDownloadConfig)}.
+     *
+     * @param key the key identifying the object to retrieve
+     * @return a StoredObject containing the data, content type, and metadata of the retrieved object
+     * @throws CivoObjectStorageException if the object is too large for an array or an error occurs while retrieving it
+     */
+    public StoredObject getObjectRanged(String key) throws CivoObjectStorageException {
+        StatObjectResponse stat = fetchStat(key);
+        if (stat.size() > MAX_ARRAY_SIZE) {
+            throw new CivoObjectStorageException(String.format("Object %s with %d bytes exceeds the maximum array size", key, stat.size()));
+        }
+        byte[] data = new byte[(int) stat.size()];
+        downloader.download(key, stat, RangedDownloader.into(ByteBuffer.wrap(data)));
+        return new StoredObject(data, stat.contentType(), stat.userMetadata(), stat.etag());
+    }
+
+    /**
+     * Retrieves an object by fetching byte ranges of it concurrently into a preallocated buffer, starting at the
+     * buffer's position. On return the position is advanced by the object size.
+     *
+     * @param key    the key identifying the object to retrieve
+     * @param target the buffer receiving the object data, heap or direct
+     * @return the stat response containing size, content type, etag and user metadata of the object
+     * @throws CivoObjectStorageException if the buffer is too small or an error occurs while retrieving the object
+     */
+    public StatObjectResponse getObjectRanged(String key, ByteBuffer target) throws CivoObjectStorageException {
+        StatObjectResponse stat = fetchStat(key);
+        if (stat.size() > target.remaining()) {
+            throw new CivoObjectStorageException(String.format("Object %s with %d bytes exceeds the %d remaining buffer bytes",
+                    key, stat.size(), target.remaining()));
+        }
+        downloader.download(key, stat, RangedDownloader.into(target));
+        target.position(target.position() + (int) stat.size());
+        return stat;
+    }
+
+    /**
+     * Downloads an object directly into a file without holding its data on the heap.
+     * Byte ranges are fetched concurrently and written at their offsets through a {@link FileChannel}.
+     * The data is written to a temporary file next to {@code target}, which replaces {@code target} once the
+     * download is complete, so a failed download never leaves a truncated file behind.
+     *
+     * @param key    the key identifying the object to download
+     * @param target the file to write the object data to, replaced if it exists
+     * @return the stat response containing size, content type, etag and user metadata of the object
+     * @throws CivoObjectStorageException if an error occurs while downloading the object or writing the file
+     */
+    public StatObjectResponse downloadToFile(String key, Path target) throws CivoObjectStorageException {
+        StatObjectResponse stat = fetchStat(key);
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, target.getFileName().toString() + ".", ".part");
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                downloader.download(key, stat, RangedDownloader.into(file));
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return stat;
+        } catch (IOException e) {
+            throw new CivoObjectStorageException(String.format("Error while download object %s to file %s", key, target), e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
     /**
      * Checks whether an object with the specified key exists in the storage.
+     * If a stat cache is configured, both existing and missing objects are answered from it while cached.
      *
      * @param key the key identifying the object to check
      * @return true if the object exists, false otherwise
      */
     public boolean objectExists(String key) {
         try {
-            minio.statObject(
-                    StatObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(key)
-                            .build()
-            );
+            lookupStat(key);
             return true;
-        } catch (ErrorResponseException e) {
-            if ("NoSuchKey".equals(e.errorResponse().code())) {
-                return false;
-            }
-            return false;
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Lists all objects whose keys start with the given prefix, including those in nested "directories".
+     *
+     * @param prefix the key prefix, or an empty string for the whole bucket
+     * @return a lazily loaded stream of the matching objects that must be closed
+     * @see #listObjects(String, boolean)
+     */
+    public Stream<Item> listObjects(String prefix) {
+        return listObjects(prefix, true);
+    }
+
+    /**
+     * Lists the objects whose keys start with the given prefix as a lazily loaded stream.
+     * Results are fetched page by page while the stream is consumed; the next page is requested in the
+     * background while the caller processes the current one, and at most about two pages are held in memory.
+     * The stream must be closed, preferably with try-with-resources, if it is not consumed to the end.
+     * Errors while listing are thrown as {@link UncheckedCivoObjectStorageException} from the stream operations.
+     *
+     * @param prefix    the key prefix, or an empty string for the whole bucket
+     * @param recursive whether to descend into nested "directories"; if false, common prefixes up to the next
+     *                  {@code /} are returned as directory items
+     * @return a lazily loaded stream of the matching objects
+     */
+    public Stream<Item> listObjects(String prefix, boolean recursive) {
+        return new PrefetchingIterator<>(lister.listPages(prefix, recursive), LIST_PAGE_SIZE,
+                String.format("list objects with prefix %s", prefix)).stream();
+    }
+
+    /**
+     * Lists all objects whose keys start with the given prefix by listing its "directories" concurrently.
+     * The objects directly below the prefix and its common prefixes up to the next {@code /} are listed first
+     * with a single non-recursive listing; each common prefix is then listed recursively as a separate shard.
+     * The top-level listing is read lazily while the shards are started, and runs of objects directly below the
+     * prefix become shards of at most one page, so a flat prefix is streamed like a single listing.
+     * This splits the work well for keys organized in directories; for flat, evenly distributed keys such as
+     * hashes use {@link #listObjectsParallel(String, Collection, int, boolean)} with known prefix characters.
+     * Ordered output holds up to four pages per running shard in memory, unordered output one page per shard.
+     *
+     * @param prefix      the key prefix, or an empty string for the whole bucket
+     * @param parallelism the maximum number of shards listed at the same time
+     * @param ordered     whether to return the objects in key order; unordered output returns objects as soon
+     *                    as any shard delivers them
+     * @return a lazily loaded stream of the matching objects that must be closed
+     */
+    public Stream<Item> listObjectsParallel(String prefix, int parallelism, boolean ordered) {
+        return mergeShards(lister.directoryShards(prefix), prefix, parallelism, ordered);
+    }
+
+    /**
+     * Lists all objects whose keys start with the given prefix followed by one of the given shard prefixes,
+     * listing the shards concurrently. For keys starting with hex digits, for example, the shards
+     * {@code 0} to {@code f} split the listing into 16 request sequences that run in parallel.
+     * The shards must not overlap and should cover the key space below the prefix; keys that start with none
+     * of them are not listed. Ordered output lists the shards in the UTF-8 byte order of their keys, the order
+     * S3 lists keys in.
+     *
+     * @param prefix      the key prefix, or an empty string for the whole bucket
+     * @param shards      the non-overlapping prefixes appended to {@code prefix}, one listing each
+     * @param parallelism the maximum number of shards listed at the same time
+     * @param ordered     whether to return the objects in key order; unordered output returns objects as soon
+     *                    as any shard delivers them
+     * @return a lazily loaded stream of the matching objects that must be closed
+     */
+    public Stream<Item> listObjectsParallel(String prefix, Collection<String> shards, int parallelism,
+                                            boolean ordered) {
+        List<Iterable<Result<Item>>> sources = new ArrayList<>();
+        Set<String> sorted = new TreeSet<>(KEY_ORDER);
+        sorted.addAll(shards);
+        for (String shard : sorted) {
+            sources.add(lister.listPages(prefix + shard, true));
+        }
+        return mergeShards(sources, prefix, parallelism, ordered);
+    }
+
+    private Stream<Item> mergeShards(Iterable<? extends Iterable<Result<Item>>> shards, String prefix, int parallelism,
+                                     boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        String description = String.format("list objects with prefix %s", prefix);
+        if (ordered) {
+            return new OrderedShardIterator<>(shards, parallelism, LIST_PAGE_SIZE * ORDERED_LIST_BUFFER_PAGES,
+                    description).stream();
+        }
+        return new PrefetchingIterator<>(shards, parallelism, LIST_PAGE_SIZE * parallelism, description).stream();
+    }
+
     /**
      * Returns the direct public URL for an object (endpoint/bucket/key).
      * Note: the object must be publicly accessible for this URL to work without authentication.
@@ -218,45 +891,607 @@ public class CivoObjectStorage {
      * @throws CivoObjectStorageException if an error occurs while generating the URL
      */
     public String getPresignedUrl(String key, int expiry, TimeUnit unit) throws CivoObjectStorageException {
-        try {
-            return minio.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
-                            .bucket(bucket)
-                            .object(key)
-                            .expiry(expiry, unit)
-                            .build()
-            );
-        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
-                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
-            throw new CivoObjectStorageException(String.format("Error while generating presigned URL for key %s", key), e);
-        }
+        return measure(StorageOperation.GET_PRESIGNED_URL, 0, url -> 0, () -> {
+            try {
+                return minio.getPresignedObjectUrl(
+                        GetPresignedObjectUrlArgs.builder()
+                                .method(Method.GET)
+                                .bucket(bucket)
+                                .object(key)
+                                .expiry(expiry, unit)
+                                .build()
+                );
+            } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                     InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                     XmlParserException e) {
+                throw new CivoObjectStorageException(String.format("Error while generating presigned URL for key %s", key), e);
+            }
+        });
     }
 
     /**
      * Returns metadata (stat) for an object without downloading it.
+     * If a stat cache is configured, the metadata is answered from it while cached.
      *
      * @param key the key identifying the object
      * @return the stat response containing size, content type, etag, etc.
      * @throws CivoObjectStorageException if an error occurs while retrieving metadata
      */
     public StatObjectResponse statObject(String key) throws CivoObjectStorageException {
+        return measure(StorageOperation.STAT_OBJECT, 0, stat -> 0, () -> lookupStat(key));
+    }
+
+    /**
+     * Returns hit, miss and eviction counters of the object cache.
+     *
+     * @return the cache counters, or empty if no object cache is configured
+     */
+    public Optional<CacheStats> getObjectCacheStats() {
+        return cache == null ? Optional.empty() : Optional.of(cache.stats());
+    }
+
+    /**
+     * Returns hit, miss, eviction and revalidation counters of the disk cache.
+     *
+     * @return the cache counters, or empty if no disk cache is configured
+     */
+    public Optional<CacheStats> getDiskCacheStats() {
+        return diskCache == null ? Optional.empty() : Optional.of(diskCache.stats());
+    }
+
+    /**
+     * Returns how often GETs were hedged and how often the second request won.
+     *
+     * @return the hedging counters, or empty if hedging is not configured
+     */
+    public Optional<HedgeStats> getHedgeStats() {
+        return hedger == null ? Optional.empty() : Optional.of(hedger.stats());
+    }
+
+    /**
+     * Returns the current adaptive concurrency limit, the requests in flight and the rejected requests.
+     * The limiter is shared with all bucket views of the instance.
+     *
+     * @return the limiter state, or empty if no concurrency limit is configured
+     */
+    public Optional<ConcurrencyLimitStats> getConcurrencyLimitStats() {
+        return clients.limiter() == null ? Optional.empty() : Optional.of(clients.limiter().stats());
+    }
+
+    /**
+     * Returns the state of the circuit breaker, the failure rate it is based on, the rejected requests and how
+     * often it opened. The breaker is shared with all bucket views of the instance.
+     *
+     * @return the circuit breaker state, or empty if no circuit breaker is configured
+     */
+    public Optional<CircuitBreakerStats> getCircuitBreakerStats() {
+        return clients.breaker() == null ? Optional.empty() : Optional.of(clients.breaker().stats());
+    }
+
+    /**
+     * Returns hit, miss and eviction counters of the stat cache.
+     *
+     * @return the cache counters, or empty if no stat cache is configured
+     */
+    public Optional<CacheStats> getStatCacheStats() {
+        return statCache == null ? Optional.empty() : Optional.of(statCache.stats());
+    }
+
+    /**
+     * Performs a HEAD request for an object, answered from the stat cache if one is configured.
+     * Concurrent lookups of the same key share one request. For a missing object the exception carries the
+     * {@code NoSuchKey} error response, cached or not.
+     */
+    private StatObjectResponse lookupStat(String key) throws CivoObjectStorageException {
+        if (statCache != null) {
+            StatCache.Entry cached = statCache.get(key);
+            if (cached != null) {
+                if (cached.exists()) {
+                    return cached.stat();
+                }
+                throw new CivoObjectStorageException(String.format("Error while stat object %s", key), cached.missing());
+            }
+        }
+        return statFlights.execute(key, () -> fetchStat(key));
+    }
+
+    private StatObjectResponse fetchStat(String key) throws CivoObjectStorageException {
+        long generation = statCache != null ? statCache.generation() : 0;
         try {
-            return minio.statObject(
+            StatObjectResponse stat = requests.execute(OperationClass.READ, () -> minio.statObject(
                     StatObjectArgs.builder()
                             .bucket(bucket)
                             .object(key)
                             .build()
-            );
-        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
-                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException e) {
+            ));
+            if (statCache != null) {
+                statCache.putFound(key, stat, generation);
+            }
+            return stat;
+        } catch (ErrorResponseException e) {
+            if (statCache != null && "NoSuchKey".equals(e.errorResponse().code())) {
+                statCache.putMissing(key, e, generation);
+            }
             throw new CivoObjectStorageException(String.format("Error while stat object %s", key), e);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            throw new CivoObjectStorageException(String.format("Error while stat object %s", key), e);
+        }
+    }
+
+    /**
+     * A public operation whose latency, bytes and outcome are reported to the metrics.
+     */
+    @FunctionalInterface
+    private interface Measured<T> {
+        T call() throws CivoObjectStorageException;
+    }
+
+    /**
+     * Runs the operation and reports it to the metrics, if any are configured.
+     *
+     * @param bytesOut the number of bytes the operation stores
+     * @param bytesIn  returns the number of bytes in the result of the operation
+     */
+    private <T> T measure(StorageOperation operation, long bytesOut, ToLongFunction<T> bytesIn, Measured<T> call)
+            throws CivoObjectStorageException {
+        if (metrics == null) {
+            return call.call();
+        }
+        metrics.started(operation);
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            metrics.succeeded(operation, System.nanoTime() - start, bytesIn.applyAsLong(result), bytesOut);
+            return result;
+        } catch (CivoObjectStorageException | RuntimeException | Error e) {
+            metrics.failed(operation, System.nanoTime() - start, errorCode(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the S3 error code of a failure, or the simple class name of its cause if there is no error response.
+     */
+    private static String errorCode(Throwable e) {
+        Throwable cause = e instanceof CivoObjectStorageException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ErrorResponseException ere && ere.errorResponse() != null) {
+            return ere.errorResponse().code();
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Drops cached state for a key after it was written or deleted through this instance.
+     */
+    private void invalidate(String key) {
+        objectFlights.forget(key);
+        statFlights.forget(key);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+        if (diskCache != null) {
+            diskCache.invalidate(key);
+        }
+        if (statCache != null) {
+            statCache.invalidate(key);
+        }
+    }
+
+    /**
+     * Reads an entry of the disk cache, or returns null and drops the entry if its file cannot be read.
+     */
+    private StoredObject readCached(DiskCache.Entry entry) {
+        try {
+            return new StoredObject(diskCache.read(entry), entry.contentType(), entry.userMetadata(), entry.etag());
+        } catch (IOException e) {
+            diskCache.discard(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Opens an entry of the disk cache, or returns null and drops the entry if its file cannot be opened.
+     */
+    private StoredObjectStream openCached(DiskCache.Entry entry) {
+        try {
+            return new StoredObjectStream(diskCache.open(entry), entry.contentType(), entry.userMetadata(),
+                    entry.etag(), entry.size());
+        } catch (IOException e) {
+            diskCache.discard(entry);
+            return null;
+        }
+    }
+
+    private void storeCached(String key, StoredObject object, long generation) {
+        if (object == null || !diskCache.fits(object.data().length)) {
+            return;
+        }
+        try {
+            diskCache.put(key, new ByteArrayInputStream(object.data()), object.etag(), object.contentType(),
+                    object.userMetadata(), generation);
+        } catch (IOException e) {
+            // the disk cache is best effort, the object is served without being cached
+        }
+    }
+
+    private void refreshCached(DiskCache.Entry entry, long generation) {
+        try {
+            diskCache.refresh(entry, generation);
+        } catch (IOException e) {
+            // the entry stays expired and is revalidated again on the next read
+        }
+    }
+
+    /**
+     * Parses the object headers of a GET response the same way a HEAD request would be parsed.
+     */
+    static StatObjectResponse statOf(GetObjectResponse response) {
+        return new StatObjectResponse(response.headers(), response.bucket(), response.region(), response.object());
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // best effort cleanup of a temporary file
+        }
+    }
+
+    /**
+     * Reads a response body into an array of exactly the announced size, avoiding the grow-and-copy of
+     * {@link InputStream#readAllBytes()} when the content length is known.
+     */
+    static byte[] readBody(InputStream in, long size) throws IOException {
+        if (size < 0 || size > MAX_ARRAY_SIZE) {
+            return in.readAllBytes();
+        }
+        byte[] data = new byte[(int) size];
+        int read = in.readNBytes(data, 0, data.length);
+        if (read < data.length) {
+            throw new EOFException(String.format("Response ended after %d of %d bytes", read, size));
+        }
+        return data;
+    }
+
+    public record StoredObject(byte[] data, String contentType, Map<String, String> userMetadata, String etag) {
+        public StoredObject(byte[] data, String contentType, Map<String, String> userMetadata) {
+            this(data, contentType, userMetadata, null);
+        }
+
+        /**
+         * Returns a copy with its own data array, so cached objects cannot be modified through returned ones.
+         */
+        StoredObject copy() {
+            return new StoredObject(data.clone(), contentType, userMetadata, etag);
         }
     }
 
-    public record StoredObject(byte[] data, String contentType, Map<String, String> userMetadata) {
+    /**
+     * Returns the region of a known Civo endpoint, compared by host, or null for other endpoints.
+     * Endpoints without scheme are taken as HTTPS URLs, as the SDK does.
+     */
+    static String defaultRegion(String endpoint) {
+        if (endpoint == null) {
+            return null;
+        }
+        String url = endpoint.strip();
+        if (!url.contains("://")) {
+            url = "https://" + url;
+        }
+        try {
+            String host = URI.create(url).getHost();
+            return FRA_1_HOST.equalsIgnoreCase(host) ? REGION_FRA_1 : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static final class Builder {
+        private String endpoint = ENDPOINT_FRA_1;
+        private String region;
+        private String accessKey;
+        private String secretKey;
+        private String bucket;
+        private MultipartConfig multipartConfig = MultipartConfig.defaults();
+        private RangedDownloadConfig rangedDownloadConfig = RangedDownloadConfig.defaults();
+        private HttpClientConfig httpClientConfig = HttpClientConfig.defaults();
+        private RetryConfig retryConfig = RetryConfig.defaults();
+        private HedgeConfig hedgeConfig;
+        private ConcurrencyLimitConfig concurrencyLimitConfig;
+        private CircuitBreakerConfig circuitBreakerConfig;
+        private Consumer<CircuitBreakerEvent> circuitBreakerListener;
+        private StorageMetrics metrics;
+        private final Map<OperationClass, RateLimit> rateLimits = new EnumMap<>(OperationClass.class);
+        private OkHttpClient httpClient;
+        private ObjectCacheConfig objectCacheConfig;
+        private DiskCacheConfig diskCacheConfig;
+        private StatCacheConfig statCacheConfig;
+
+        private Builder() {
+        }
+
+        private Builder copy() {
+            Builder copy = new Builder();
+            copy.endpoint = endpoint;
+            copy.region = region;
+            copy.accessKey = accessKey;
+            copy.secretKey = secretKey;
+            copy.bucket = bucket;
+            copy.multipartConfig = multipartConfig;
+            copy.rangedDownloadConfig = rangedDownloadConfig;
+            copy.httpClientConfig = httpClientConfig;
+            copy.retryConfig = retryConfig;
+            copy.hedgeConfig = hedgeConfig;
+            copy.concurrencyLimitConfig = concurrencyLimitConfig;
+            copy.circuitBreakerConfig = circuitBreakerConfig;
+            copy.circuitBreakerListener = circuitBreakerListener;
+            copy.metrics = metrics;
+            copy.rateLimits.putAll(rateLimits);
+            copy.httpClient = httpClient;
+            copy.objectCacheConfig = objectCacheConfig;
+            copy.diskCacheConfig = diskCacheConfig;
+            copy.statCacheConfig = statCacheConfig;
+            return copy;
+        }
+
+        /**
+         * Sets the endpoint URL, defaults to {@link CivoObjectStorage#ENDPOINT_FRA_1}.
+         *
+         * @param endpoint the endpoint URL
+         * @return this builder
+         */
+        public Builder endpoint(String endpoint) {
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * Sets the region requests are signed for, so the client never looks up bucket locations.
+         * Defaults to {@link CivoObjectStorage#REGION_FRA_1} for endpoints on the host of
+         * {@link CivoObjectStorage#ENDPOINT_FRA_1}, regardless of scheme, case, port or trailing slash;
+         * for other endpoints without a region the client resolves it with a location request per bucket.
+         *
+         * @param region the region name, e.g. {@code FRA1}
+         * @return this builder
+         */
+        public Builder region(String region) {
+            this.region = region;
+            return this;
+        }
+
+        /**
+         * Returns the configured region, or the default region of the endpoint.
+         */
+        private String region() {
+            if (region != null) {
+                return region;
+            }
+            return defaultRegion(endpoint);
+        }
+
+        /**
+         * Sets the access key and secret key.
+         *
+         * @param accessKey the access key
+         * @param secretKey the secret key
+         * @return this builder
+         */
+        public Builder credentials(String accessKey, String secretKey) {
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            return this;
+        }
+
+        /**
+         * Sets the bucket all operations of the storage instance work on.
+         *
+         * @param bucket the bucket name
+         * @return this builder
+         */
+        public Builder bucket(String bucket) {
+            this.bucket = bucket;
+            return this;
+        }
+
+        /**
+         * Sets part size, parallelism and retry attempts for multipart uploads.
+         *
+         * @param multipartConfig the multipart settings
+         * @return this builder
+         */
+        public Builder multipart(MultipartConfig multipartConfig) {
+            this.multipartConfig = Objects.requireNonNull(multipartConfig, "multipartConfig");
+            return this;
+        }
+
+        /**
+         * Sets range size and parallelism for ranged downloads.
+         *
+         * @param rangedDownloadConfig the ranged download settings
+         * @return this builder
+         */
+        public Builder rangedDownload(RangedDownloadConfig rangedDownloadConfig) {
+            this.rangedDownloadConfig = Objects.requireNonNull(rangedDownloadConfig, "rangedDownloadConfig");
+            return this;
+        }
+
+        /**
+         * Sets connection pool, dispatcher limits and timeouts of the HTTP client created for the instance.
+         *
+         * @param httpClientConfig the HTTP client settings
+         * @return this builder
+         */
+        public Builder httpClient(HttpClientConfig httpClientConfig) {
+            this.httpClientConfig = Objects.requireNonNull(httpClientConfig, "httpClientConfig");
+            return this;
+        }
+
+        /**
+         * Uses an existing HTTP client, e.g. to share one connection pool between several instances.
+         * The client is used as is; settings from {@link #httpClient(HttpClientConfig)} are ignored.
+         *
+         * @param httpClient the HTTP client to send all requests with
+         * @return this builder
+         */
+        public Builder httpClient(OkHttpClient httpClient) {
+            this.httpClient = Objects.requireNonNull(httpClient, "httpClient");
+            return this;
+        }
+
+        /**
+         * Sets how requests failing with transient errors are retried, defaults to {@link RetryConfig#defaults()}.
+         * Use {@link RetryConfig#disabled()} to send every request once.
+         *
+         * @param retryConfig the retry settings
+         * @return this builder
+         */
+        public Builder retry(RetryConfig retryConfig) {
+            this.retryConfig = Objects.requireNonNull(retryConfig, "retryConfig");
+            return this;
+        }
+
+        /**
+         * Enables an adaptive limit on concurrent requests that shrinks when the object storage slows down or
+         * fails with transient errors and grows again when it recovers. Requests beyond the limit wait for a slot
+         * or fail with a {@link RequestRejectedException} cause. One limiter is shared by the instance and all
+         * bucket views created from it; build separate instances for separate limits.
+         *
+         * @param concurrencyLimitConfig the concurrency limit settings
+         * @return this builder
+         */
+        public Builder concurrencyLimit(ConcurrencyLimitConfig concurrencyLimitConfig) {
+            this.concurrencyLimitConfig = Objects.requireNonNull(concurrencyLimitConfig, "concurrencyLimitConfig");
+            return this;
+        }
+
+        /**
+         * Enables a circuit breaker that opens when too many requests fail with transient errors, such as
+         * timeouts or refused connections, and then fails requests immediately instead of letting each of them
+         * wait for the network timeout. It guards every request of the blocking API, including the parts of
+         * multipart uploads, the ranges of ranged downloads, list pages and multi-object deletes. Aborts of
+         * failed multipart uploads are sent regardless, so that no orphaned parts remain, and the requests of
+         * {@link CivoObjectStorage#async()} bypass it. One breaker is shared by the instance and all bucket views
+         * created from it, since they talk to the same endpoint.
+         *
+         * @param circuitBreakerConfig the circuit breaker settings
+         * @return this builder
+         */
+        public Builder circuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+            return circuitBreaker(circuitBreakerConfig, null);
+        }
+
+        /**
+         * Enables a circuit breaker as {@link #circuitBreaker(CircuitBreakerConfig)} does and passes its state
+         * transitions to the listener, e.g. to log them or to publish them as metrics. The listener is called
+         * on the thread of the request that caused the transition and should return quickly.
+         *
+         * @param circuitBreakerConfig the circuit breaker settings
+         * @param listener             receives the state transitions, can be null
+         * @return this builder
+         */
+        public Builder circuitBreaker(CircuitBreakerConfig circuitBreakerConfig,
+                                      Consumer<CircuitBreakerEvent> listener) {
+            this.circuitBreakerConfig = Objects.requireNonNull(circuitBreakerConfig, "circuitBreakerConfig");
+            this.circuitBreakerListener = listener;
+            return this;
+        }
+
+        /**
+         * Reports the latency, transferred bytes and outcome of every {@link StorageOperation} to the metrics,
+         * e.g. a {@link HistogramMetrics} or a bridge to a metrics library. Bucket views created from the
+         * instance report to the same metrics.
+         *
+         * @param metrics the metrics to report to
+         * @return this builder
+         */
+        public Builder metrics(StorageMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        /**
+         * Limits the request and byte rate of one operation class, e.g. to stay below the per-bucket limits of
+         * the object storage. Requests beyond the rate wait for their tokens up to {@link RateLimit#maxWait()}
+         * or fail with a {@link RequestRejectedException} cause. Every instance and bucket view has its own
+         * rate limits, since the object storage limits each bucket separately.
+         *
+         * @param operation the operation class to limit
+         * @param rateLimit the rates allowed for the operation class
+         * @return this builder
+         */
+        public Builder rateLimit(OperationClass operation, RateLimit rateLimit) {
+            rateLimits.put(Objects.requireNonNull(operation, "operation"), Objects.requireNonNull(rateLimit, "rateLimit"));
+            return this;
+        }
+
+        /**
+         * Enables hedged GETs for {@link CivoObjectStorage#getObject(String)} and
+         * {@link CivoObjectStorage#getObjectStream(String)}: a GET without response after a latency percentile
+         * is sent a second time and the first response wins. This trades a few percent more requests for a
+         * shorter latency tail. The second request counts against the rate limits and the concurrency limit
+         * like any other; it is only sent if both have a permit free right away.
+         *
+         * @param hedgeConfig the hedging settings
+         * @return this builder
+         */
+        public Builder hedging(HedgeConfig hedgeConfig) {
+            this.hedgeConfig = Objects.requireNonNull(hedgeConfig, "hedgeConfig");
+            return this;
+        }
+
+        /**
+         * Enables a size-bounded in-memory cache in front of {@link CivoObjectStorage#getObject(String)}.
+         * Keys written or deleted through the storage instance are invalidated; changes made by other clients
+         * become visible once the cached entry expires.
+         *
+         * @param objectCacheConfig the cache settings
+         * @return this builder
+         */
+        public Builder objectCache(ObjectCacheConfig objectCacheConfig) {
+            this.objectCacheConfig = Objects.requireNonNull(objectCacheConfig, "objectCacheConfig");
+            return this;
+        }
+
+        /**
+         * Enables a persistent, size-bounded disk cache below the in-memory cache for
+         * {@link CivoObjectStorage#getObject(String)} and {@link CivoObjectStorage#getObjectStream(String)}.
+         * Cached objects survive restarts and are revalidated with conditional requests once they expire.
+         *
+         * @param diskCacheConfig the disk cache settings
+         * @return this builder
+         */
+        public Builder diskCache(DiskCacheConfig diskCacheConfig) {
+            this.diskCacheConfig = Objects.requireNonNull(diskCacheConfig, "diskCacheConfig");
+            return this;
+        }
+
+        /**
+         * Enables a metadata cache for {@link CivoObjectStorage#statObject(String)} and
+         * {@link CivoObjectStorage#objectExists(String)} that also remembers missing objects.
+         * Keys written or deleted through the storage instance are invalidated.
+         *
+         * @param statCacheConfig the stat cache settings
+         * @return this builder
+         */
+        public Builder statCache(StatCacheConfig statCacheConfig) {
+            this.statCacheConfig = Objects.requireNonNull(statCacheConfig, "statCacheConfig");
+            return this;
+        }
+
+        /**
+         * Creates the storage instance.
+         * Opening a configured disk cache reads its index, so this may touch the file system.
+         *
+         * @return the configured storage instance
+         * @throws UncheckedIOException if the disk cache directory cannot be opened
+         */
+        public CivoObjectStorage build() {
+            Objects.requireNonNull(bucket, "bucket");
+            return new CivoObjectStorage(copy());
+        }
     }
 
     public static final class ContentTypes {
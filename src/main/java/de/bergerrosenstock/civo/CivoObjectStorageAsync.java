@@ -0,0 +1,268 @@
+package de.bergerrosenstock.civo;
+
+import de.bergerrosenstock.civo.CivoObjectStorage.StoredObject;
+import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.http.Method;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of {@link CivoObjectStorage}, obtained with {@link CivoObjectStorage#async()}.
+ * <p>
+ * All requests are sent with {@link MinioAsyncClient} on the HTTP client's dispatcher, so no thread waits for
+ * a response. Futures complete exceptionally with a {@link CivoObjectStorageException}, wrapped in a
+ * {@link CompletionException} by dependent stages. Writes and deletes invalidate the caches of the owning
+ * storage instance; reads are answered from fresh entries of its object and stat caches, while the disk cache
+ * is only used by the blocking API since it reads files synchronously.
+ * <p>
+ * Requests of this API are sent once: they bypass the retry policy, the concurrency limiter, the rate limits,
+ * the circuit breaker and the {@link StorageMetrics} of the owning instance, which all block or measure the
+ * calling thread. Callers that need these protections use the blocking API, e.g. on virtual threads.
+ */
+public final class CivoObjectStorageAsync {
+
+    /**
+     * A call that starts an asynchronous request and may fail before sending it.
+     */
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+        CompletableFuture<T> start() throws MinioException, IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Runs the stages that read response bodies, which block on the network, off the HTTP client's dispatcher.
+     */
+    private static final Executor BODY_READER = task -> Thread.ofVirtual().name("civo-async-read").start(task);
+
+    private final MinioAsyncClient minio;
+    private final String bucket;
+    private final int partSize;
+    private final ObjectCache cache;
+    private final StatCache statCache;
+    private final Consumer<String> invalidate;
+
+    CivoObjectStorageAsync(MinioAsyncClient minio, String bucket, int partSize, ObjectCache cache,
+                           StatCache statCache, Consumer<String> invalidate) {
+        this.minio = minio;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.cache = cache;
+        this.statCache = statCache;
+        this.invalidate = invalidate;
+    }
+
+    /**
+     * Uploads a byte array with the specified key and content type.
+     *
+     * @param key         the key to associate with the object in the storage
+     * @param bytes       the byte array representing the data to store
+     * @param contentType the MIME type of the stored object
+     * @return a future completing with the write response
+     */
+    public CompletableFuture<ObjectWriteResponse> putBytes(String key, byte[] bytes, String contentType) {
+        return putBytes(key, bytes, contentType, null);
+    }
+
+    /**
+     * Uploads a byte array with the specified key, content type, and optional user-defined metadata.
+     *
+     * @param key         the key to associate with the object in the storage
+     * @param bytes       the byte array representing the data to store
+     * @param contentType the MIME type of the stored object
+     * @param userMeta    a map of user-defined metadata to associate with the object, can be null
+     * @return a future completing with the write response
+     */
+    public CompletableFuture<ObjectWriteResponse> putBytes(String key, byte[] bytes, String contentType,
+                                                           Map<String, String> userMeta) {
+        return execute(String.format("Error while put bytes to key %s", key), () -> {
+            PutObjectArgs.Builder b = PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(key)
+                    .stream(new ByteArrayInputStream(bytes), bytes.length, partSize)
+                    .contentType(contentType);
+            if (userMeta != null && !userMeta.isEmpty()) {
+                b.userMetadata(userMeta);
+            }
+            return minio.putObject(b.build());
+        }).whenComplete((response, e) -> invalidate.accept(key));
+    }
+
+    /**
+     * Retrieves an object. Once the response headers arrive, the body is read on a virtual thread, so a slow
+     * body does not hold up the HTTP client's dispatcher.
+     *
+     * @param key the key identifying the object to retrieve
+     * @return a future completing with the data, content type, and metadata of the object
+     */
+    public CompletableFuture<StoredObject> getObject(String key) {
+        if (cache != null) {
+            StoredObject cached = cache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached.copy());
+            }
+        }
+        long generation = cache != null ? cache.generation() : 0;
+        CompletableFuture<StoredObject> future = execute(String.format("Error while get object %s with key", key),
+                () -> minio.getObject(getArgs(key)).thenApplyAsync(opened -> {
+                    try (var response = opened) {
+                        StatObjectResponse stat = CivoObjectStorage.statOf(response);
+                        byte[] data = CivoObjectStorage.readBody(response, stat.size());
+                        return new StoredObject(data, stat.contentType(), stat.userMetadata(), stat.etag());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, BODY_READER));
+        if (cache == null) {
+            return future;
+        }
+        return future.thenApply(object -> {
+            cache.put(key, object.copy(), generation);
+            return object;
+        });
+    }
+
+    /**
+     * Opens an object for incremental reading. The future completes as soon as the response headers arrive;
+     * reading from the returned handle blocks like any input stream, and the handle must be closed.
+     *
+     * @param key the key identifying the object to retrieve
+     * @return a future completing with an open handle on the object data and metadata
+     */
+    public CompletableFuture<StoredObjectStream> getObjectStream(String key) {
+        return execute(String.format("Error while get object %s with key", key),
+                () -> minio.getObject(getArgs(key)).thenApply(
+                        response -> new StoredObjectStream(response, CivoObjectStorage.statOf(response))));
+    }
+
+    /**
+     * Deletes an object.
+     *
+     * @param key the key identifying the object to delete
+     * @return a future completing when the object is deleted
+     */
+    public CompletableFuture<Void> deleteObject(String key) {
+        return execute(String.format("Error while deleting key %s from storage", key),
+                () -> minio.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(key)
+                                .build()
+                )).whenComplete((response, e) -> invalidate.accept(key));
+    }
+
+    /**
+     * Returns metadata (stat) for an object without downloading it.
+     *
+     * @param key the key identifying the object
+     * @return a future completing with the stat response containing size, content type, etag, etc.
+     */
+    public CompletableFuture<StatObjectResponse> statObject(String key) {
+        return execute(String.format("Error while stat object %s", key), () -> lookupStat(key));
+    }
+
+    /**
+     * Checks whether an object with the specified key exists.
+     *
+     * @param key the key identifying the object to check
+     * @return a future completing with true if the object exists, false otherwise; it never fails
+     */
+    public CompletableFuture<Boolean> objectExists(String key) {
+        return statObject(key).handle((stat, e) -> e == null);
+    }
+
+    /**
+     * Generates a pre-signed URL for accessing an object. Signing happens locally; the future is completed
+     * when it is returned, unless the bucket region has not been looked up yet.
+     *
+     * @param key    the key identifying the object
+     * @param expiry the duration value for the pre-signed URL
+     * @param unit   the time unit for the expiry duration
+     * @return a future completing with the pre-signed URL
+     */
+    public CompletableFuture<String> getPresignedUrl(String key, int expiry, TimeUnit unit) {
+        return execute(String.format("Error while generating presigned URL for key %s", key),
+                () -> CompletableFuture.completedFuture(minio.getPresignedObjectUrl(
+                        GetPresignedObjectUrlArgs.builder()
+                                .method(Method.GET)
+                                .bucket(bucket)
+                                .object(key)
+                                .expiry(expiry, unit)
+                                .build()
+                )));
+    }
+
+    private GetObjectArgs getArgs(String key) {
+        return GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(key)
+                .build();
+    }
+
+    /**
+     * Sends a HEAD request for an object, answered from the stat cache if one is configured.
+     * For a missing object the future fails with the {@code NoSuchKey} error response, cached or not.
+     */
+    private CompletableFuture<StatObjectResponse> lookupStat(String key)
+            throws MinioException, IOException, GeneralSecurityException {
+        StatObjectArgs args = StatObjectArgs.builder()
+                .bucket(bucket)
+                .object(key)
+                .build();
+        if (statCache == null) {
+            return minio.statObject(args);
+        }
+        StatCache.Entry cached = statCache.get(key);
+        if (cached != null) {
+            return cached.exists()
+                    ? CompletableFuture.completedFuture(cached.stat())
+                    : CompletableFuture.failedFuture(cached.missing());
+        }
+        long generation = statCache.generation();
+        return minio.statObject(args).whenComplete((stat, e) -> {
+            if (stat != null) {
+                statCache.putFound(key, stat, generation);
+            } else if (unwrap(e) instanceof ErrorResponseException ere
+                    && "NoSuchKey".equals(ere.errorResponse().code())) {
+                statCache.putMissing(key, ere, generation);
+            }
+        });
+    }
+
+    /**
+     * Starts the call and maps any failure, immediate or asynchronous, to a {@link CivoObjectStorageException}.
+     */
+    private static <T> CompletableFuture<T> execute(String message, AsyncCall<T> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.start();
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            return CompletableFuture.failedFuture(new CivoObjectStorageException(message, e));
+        }
+        return future.exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                new CivoObjectStorageException(message, unwrap(e))));
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
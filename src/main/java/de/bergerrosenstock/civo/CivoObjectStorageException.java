@@ -1,6 +1,10 @@
 package de.bergerrosenstock.civo;
 
 public class CivoObjectStorageException extends Exception {
+    public CivoObjectStorageException(String message) {
+        super(message);
+    }
+
     public CivoObjectStorageException(String message, Throwable cause) {
         super(message, cause);
     }
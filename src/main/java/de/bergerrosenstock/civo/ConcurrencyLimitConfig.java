@@ -0,0 +1,55 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the adaptive limit on concurrent requests to the object storage.
+ * <p>
+ * The limit follows AIMD: each request that completes within {@code latencyThreshold} while the limit is in
+ * use raises it by {@code 1/limit}, so it grows by about one per round of requests; each request that takes
+ * longer or fails with a transient error multiplies it by {@code backoffRatio}. Requests beyond the limit wait
+ * up to {@code maxWait} for a slot and are rejected after that; a zero {@code maxWait} rejects them at once.
+ *
+ * @param initialLimit     the limit at startup
+ * @param minLimit         the lower bound of the limit
+ * @param maxLimit         the upper bound of the limit
+ * @param latencyThreshold the latency above which a request counts as a sign of overload
+ * @param backoffRatio     the factor applied to the limit on overload, between 0 and 1
+ * @param maxWait          how long a request waits for a slot before it is rejected
+ */
+public record ConcurrencyLimitConfig(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                                     double backoffRatio, Duration maxWait) {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 4;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofSeconds(2);
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+    public ConcurrencyLimitConfig {
+        Objects.requireNonNull(latencyThreshold, "latencyThreshold");
+        Objects.requireNonNull(maxWait, "maxWait");
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        if (latencyThreshold.isNegative() || maxWait.isNegative()) {
+            throw new IllegalArgumentException("durations must not be negative");
+        }
+    }
+
+    /**
+     * Returns the default settings: start at 20 requests, adapt between 4 and 200, treat requests slower than
+     * 2 s as overload, back off by 10% and let requests wait up to 30 s for a slot.
+     *
+     * @return the default concurrency limit settings
+     */
+    public static ConcurrencyLimitConfig defaults() {
+        return new ConcurrencyLimitConfig(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+                DEFAULT_LATENCY_THRESHOLD, DEFAULT_BACKOFF_RATIO, DEFAULT_MAX_WAIT);
+    }
+}
@@ -0,0 +1,11 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * A snapshot of the adaptive concurrency limiter.
+ *
+ * @param limit    the current limit on concurrent requests
+ * @param inFlight the number of requests currently sent
+ * @param rejected the number of requests rejected because no slot became free in time
+ */
+public record ConcurrencyLimitStats(int limit, int inFlight, long rejected) {
+}
@@ -0,0 +1,125 @@
+package de.bergerrosenstock.civo;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive AIMD limit on concurrent requests as configured by {@link ConcurrencyLimitConfig}.
+ * <p>
+ * Callers take a slot with {@link #acquire()} before sending a request and return it with
+ * {@link #release(long, boolean)}, passing the start time returned by {@code acquire} and whether the request
+ * failed with a sign of overload. The limit is decreased at most once per round of requests: only a request
+ * that started after the last decrease can decrease it again, so the requests that were in flight during one
+ * latency spike cause a single multiplicative step instead of one each.
+ */
+final class ConcurrencyLimiter {
+    private final ConcurrencyLimitConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final long thresholdNanos;
+    private final LongSupplier nanoClock;
+
+    private double limit;
+    private int inFlight;
+    private long rejected;
+    private boolean decreased;
+    private long decreasedAt;
+
+    ConcurrencyLimiter(ConcurrencyLimitConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(ConcurrencyLimitConfig config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.thresholdNanos = config.latencyThreshold().toNanos();
+        this.limit = config.initialLimit();
+    }
+
+    /**
+     * Takes a slot, waiting up to the configured time for one to become free.
+     *
+     * @return the time the request starts, to be passed to {@link #release(long, boolean)}
+     * @throws RequestRejectedException if no slot became free in time
+     * @throws InterruptedIOException   if the thread is interrupted while waiting
+     */
+    long acquire() throws RequestRejectedException, InterruptedIOException {
+        lock.lock();
+        try {
+            long remaining = config.maxWait().toNanos();
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected++;
+                    throw new RequestRejectedException(
+                            String.format("Concurrency limit of %d requests reached", (int) limit));
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return nanoClock.getAsLong();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a slot if one is free, without waiting and without counting a rejection, e.g. for an optional
+     * hedged attempt of a request.
+     *
+     * @return the time the request starts, to be passed to {@link #release(long, boolean)}, or null if no slot
+     *         is free
+     */
+    Long tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return null;
+            }
+            inFlight++;
+            return nanoClock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a slot and adapts the limit to the outcome of the request.
+     *
+     * @param startedAt  the start time returned by {@link #acquire()}
+     * @param overloaded whether the request failed with an error indicating overload
+     */
+    void release(long startedAt, boolean overloaded) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            if (overloaded || now - startedAt > thresholdNanos) {
+                if (!decreased || startedAt - decreasedAt >= 0) {
+                    limit = Math.max(config.minLimit(), limit * config.backoffRatio());
+                    decreased = true;
+                    decreasedAt = now;
+                }
+            } else if (saturated) {
+                limit = Math.min(config.maxLimit(), limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ConcurrencyLimitStats stats() {
+        lock.lock();
+        try {
+            return new ConcurrencyLimitStats((int) limit, inFlight, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * A key that could not be deleted by a batch delete.
+ *
+ * @param key     the key of the object that was not deleted
+ * @param code    the S3 error code, or the exception type if the whole request failed
+ * @param message the error message
+ */
+public record DeleteFailure(String key, String code, String message) {
+}
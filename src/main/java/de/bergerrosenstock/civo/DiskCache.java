@@ -0,0 +1,387 @@
+package de.bergerrosenstock.civo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Persistent object cache on the local file system, bounded by the total size of the cached object data.
+ * <p>
+ * Every endpoint and bucket gets its own subdirectory {@code <sha-256 of namespace>} of the configured directory,
+ * so instances for different buckets can share the directory without serving each other's objects. Below it,
+ * object data is stored content-addressed under {@code objects/<sha-256>}, so keys with identical content share
+ * one file. For every key an index file {@code index/<sha-256 of key>.properties} records ETag, size, content
+ * type, user metadata and the time the entry was last validated against the server. Both are written to
+ * {@code tmp/} first, forced to the storage device and then moved into place atomically, so a crash leaves either
+ * the old or the new state and never an index entry pointing at a truncated object file. Files are written and
+ * forced without holding the cache's lock; only the moves into place and the in-memory index updates happen
+ * under it, so lookups never wait for the storage device.
+ * On startup the index is rebuilt from the index files; entries without a matching object file, unreferenced
+ * object files and leftover temporary files are removed.
+ * <p>
+ * Eviction is least-recently-used. After a restart the order is restored from the index file modification times.
+ * Invalidation is tracked per key as in {@link ObjectCache}.
+ */
+final class DiskCache {
+    record Entry(String key, String etag, long size, String contentType, Map<String, String> userMetadata,
+                 String hash, long validatedAt) {
+    }
+
+    private static final String META_PREFIX = "meta.";
+
+    private final Path objects;
+    private final Path index;
+    private final Path tmp;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> references = new HashMap<>();
+    private long bytes;
+    private final Invalidations invalidations = new Invalidations();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long revalidations;
+
+    /**
+     * @param namespace identifies the endpoint and bucket whose objects are cached
+     */
+    DiskCache(DiskCacheConfig config, String namespace) throws IOException {
+        this(config, namespace, System::currentTimeMillis);
+    }
+
+    DiskCache(DiskCacheConfig config, String namespace, LongSupplier clock) throws IOException {
+        Path directory = config.directory().resolve(hash(namespace));
+        this.objects = Files.createDirectories(directory.resolve("objects"));
+        this.index = Files.createDirectories(directory.resolve("index"));
+        this.tmp = Files.createDirectories(directory.resolve("tmp"));
+        this.maxBytes = config.maxBytes();
+        this.ttlMillis = config.ttl().toMillis();
+        this.clock = clock;
+        load();
+    }
+
+    synchronized long generation() {
+        return invalidations.ticket();
+    }
+
+    /**
+     * Returns the entry for the key, fresh or expired, or null if the key is not cached.
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && isFresh(entry)) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    boolean isFresh(Entry entry) {
+        return clock.getAsLong() - entry.validatedAt() < ttlMillis;
+    }
+
+    /**
+     * Returns whether an object of the given size can be cached at all.
+     */
+    boolean fits(long size) {
+        return size >= 0 && size <= maxBytes;
+    }
+
+    InputStream open(Entry entry) throws IOException {
+        return Files.newInputStream(objects.resolve(entry.hash()));
+    }
+
+    byte[] read(Entry entry) throws IOException {
+        byte[] data = Files.readAllBytes(objects.resolve(entry.hash()));
+        if (data.length != entry.size()) {
+            throw new IOException(String.format("Cached object %s has %d instead of %d bytes",
+                    entry.hash(), data.length, entry.size()));
+        }
+        return data;
+    }
+
+    /**
+     * Stores the body under the key unless the key was invalidated since {@code generation} was read or the body
+     * exceeds the size bound.
+     *
+     * @return the new entry, or null if the body was not cached
+     */
+    Entry put(String key, InputStream body, String etag, String contentType, Map<String, String> userMetadata,
+              long generation) throws IOException {
+        Path temp = Files.createTempFile(tmp, "object", ".tmp");
+        Path indexTemp = null;
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), digest)) {
+                size = body.transferTo(out);
+                channel.force(true);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Entry entry = new Entry(key, etag, size, contentType,
+                    userMetadata != null ? Map.copyOf(userMetadata) : Map.of(), hash, clock.getAsLong());
+            if (!fits(size)) {
+                return null;
+            }
+            indexTemp = writeIndex(entry);
+            synchronized (this) {
+                if (!invalidations.isCurrent(key, generation)) {
+                    return null;
+                }
+                Path object = objects.resolve(hash);
+                if (!Files.exists(object)) {
+                    move(temp, object);
+                }
+                move(indexTemp, indexFile(key));
+                Entry previous = entries.put(key, entry);
+                reference(entry);
+                if (previous != null) {
+                    release(previous);
+                }
+                evict();
+            }
+            return entry;
+        } finally {
+            Files.deleteIfExists(temp);
+            if (indexTemp != null) {
+                Files.deleteIfExists(indexTemp);
+            }
+        }
+    }
+
+    /**
+     * Marks an entry as validated now after the server confirmed it unchanged, unless it was invalidated or
+     * replaced since {@code generation} was read.
+     */
+    void refresh(Entry entry, long generation) throws IOException {
+        if (!isCurrent(entry, generation)) {
+            return;
+        }
+        Entry refreshed = new Entry(entry.key(), entry.etag(), entry.size(), entry.contentType(),
+                entry.userMetadata(), entry.hash(), clock.getAsLong());
+        Path indexTemp = writeIndex(refreshed);
+        try {
+            synchronized (this) {
+                if (!isCurrent(entry, generation)) {
+                    return;
+                }
+                move(indexTemp, indexFile(entry.key()));
+                entries.put(entry.key(), refreshed);
+                revalidations++;
+            }
+        } finally {
+            Files.deleteIfExists(indexTemp);
+        }
+    }
+
+    private synchronized boolean isCurrent(Entry entry, long generation) {
+        return invalidations.isCurrent(entry.key(), generation) && entries.get(entry.key()) == entry;
+    }
+
+    /**
+     * Drops an entry whose file turned out to be missing or damaged, if it is still the current entry of its key.
+     */
+    synchronized void discard(Entry entry) {
+        if (entries.get(entry.key()) == entry) {
+            entries.remove(entry.key());
+            deleteQuietly(indexFile(entry.key()));
+            release(entry);
+        }
+    }
+
+    /**
+     * Removes the key from the cache and prevents reads that are in flight from caching it.
+     */
+    synchronized void invalidate(String key) {
+        invalidations.invalidate(key);
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            deleteQuietly(indexFile(key));
+            release(removed);
+        }
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, revalidations, entries.size(), bytes);
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            deleteQuietly(indexFile(entry.key()));
+            release(entry);
+            evictions++;
+        }
+    }
+
+    private void reference(Entry entry) {
+        if (references.merge(entry.hash(), 1, Integer::sum) == 1) {
+            bytes += entry.size();
+        }
+    }
+
+    private void release(Entry entry) {
+        if (references.merge(entry.hash(), -1, Integer::sum) == 0) {
+            references.remove(entry.hash());
+            bytes -= entry.size();
+            deleteQuietly(objects.resolve(entry.hash()));
+        }
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(tmp)) {
+            for (Path leftover : leftovers) {
+                deleteQuietly(leftover);
+            }
+        }
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(index, "*.properties")) {
+            files.forEach(indexFiles::add);
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : indexFiles) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        indexFiles.sort(Comparator.comparing(modified::get));
+        for (Path file : indexFiles) {
+            Entry entry = readIndex(file);
+            Path object = entry != null ? objects.resolve(entry.hash()) : null;
+            if (entry == null || !Files.isRegularFile(object) || Files.size(object) != entry.size()
+                    || !file.equals(indexFile(entry.key()))) {
+                deleteQuietly(file);
+                continue;
+            }
+            entries.put(entry.key(), entry);
+            reference(entry);
+        }
+        Set<String> referenced = new HashSet<>(references.keySet());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(objects)) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString())) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+        evict();
+    }
+
+    private Entry readIndex(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            Map<String, String> userMetadata = new HashMap<>();
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith(META_PREFIX)) {
+                    userMetadata.put(name.substring(META_PREFIX.length()), properties.getProperty(name));
+                }
+            }
+            return new Entry(
+                    properties.getProperty("key"),
+                    properties.getProperty("etag"),
+                    Long.parseLong(properties.getProperty("size")),
+                    properties.getProperty("contentType"),
+                    Map.copyOf(userMetadata),
+                    properties.getProperty("hash"),
+                    Long.parseLong(properties.getProperty("validatedAt")));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index file of the entry to a temporary file and forces it to the storage device, without
+     * holding the lock, so that readers do not wait for the disk. The caller moves it into place under the lock.
+     *
+     * @return the temporary index file
+     */
+    private Path writeIndex(Entry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("key", entry.key());
+        properties.setProperty("size", Long.toString(entry.size()));
+        properties.setProperty("hash", entry.hash());
+        properties.setProperty("validatedAt", Long.toString(entry.validatedAt()));
+        if (entry.etag() != null) {
+            properties.setProperty("etag", entry.etag());
+        }
+        if (entry.contentType() != null) {
+            properties.setProperty("contentType", entry.contentType());
+        }
+        entry.userMetadata().forEach((name, value) -> properties.setProperty(META_PREFIX + name, value));
+        Path temp = Files.createTempFile(tmp, "index", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+            writer.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    private Path indexFile(String key) {
+        return index.resolve(hash(key) + ".properties");
+    }
+
+    private static String hash(String text) {
+        return HexFormat.of().formatHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // best effort, unreferenced object files are removed on the next startup
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.bergerrosenstock.civo;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the persistent on-disk object cache.
+ *
+ * @param directory the directory holding cached objects and their index, created if missing; instances for
+ *                  different endpoints or buckets keep their objects in separate subdirectories of it
+ * @param maxBytes  the maximum total size of cached object data in bytes
+ * @param ttl       how long a cached object is served without asking the server; expired objects are
+ *                  revalidated with a conditional request
+ */
+public record DiskCacheConfig(Path directory, long maxBytes, Duration ttl) {
+
+    public DiskCacheConfig {
+        Objects.requireNonNull(directory, "directory");
+        Objects.requireNonNull(ttl, "ttl");
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1");
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for hedged GET requests.
+ * <p>
+ * If a GET has not received its response headers after the {@code percentile} of recently observed
+ * time-to-first-byte latencies, an identical second request is sent and the first response wins.
+ * The hedging delay is kept between {@code minDelay} and {@code maxDelay}; until enough latencies are
+ * observed, {@code maxDelay} is used.
+ *
+ * @param percentile the latency percentile after which a hedge is sent, e.g. 0.95 to hedge about 5% of GETs
+ * @param minDelay   the lower bound of the hedging delay
+ * @param maxDelay   the upper bound of the hedging delay
+ */
+public record HedgeConfig(double percentile, Duration minDelay, Duration maxDelay) {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(10);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    public HedgeConfig {
+        Objects.requireNonNull(minDelay, "minDelay");
+        Objects.requireNonNull(maxDelay, "maxDelay");
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        if (minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0) {
+            throw new IllegalArgumentException("delays must not be negative and maxDelay not below minDelay");
+        }
+    }
+
+    /**
+     * Returns the default settings: hedge after the 95th percentile, but not before 10 ms or after 1 s.
+     *
+     * @return the default hedging settings
+     */
+    public static HedgeConfig defaults() {
+        return new HedgeConfig(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+}
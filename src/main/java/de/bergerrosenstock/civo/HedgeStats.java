@@ -0,0 +1,29 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * A snapshot of the counters of hedged GET requests.
+ *
+ * @param requests the number of GETs sent with hedging enabled
+ * @param hedged   the number of GETs for which a second request was sent
+ * @param hedgeWins the number of hedged GETs answered first by the second request
+ */
+public record HedgeStats(long requests, long hedged, long hedgeWins) {
+
+    /**
+     * Returns the share of GETs for which a second request was sent.
+     *
+     * @return the hedge rate between 0 and 1, or 0 if there were no requests
+     */
+    public double hedgeRate() {
+        return requests == 0 ? 0 : (double) hedged / requests;
+    }
+
+    /**
+     * Returns the share of hedged GETs that the second request won.
+     *
+     * @return the win rate between 0 and 1, or 0 if no request was hedged
+     */
+    public double winRate() {
+        return hedged == 0 ? 0 : (double) hedgeWins / hedged;
+    }
+}
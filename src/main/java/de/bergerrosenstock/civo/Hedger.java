@@ -0,0 +1,172 @@
+package de.bergerrosenstock.civo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests hedged as configured by {@link HedgeConfig}: if the first attempt has not completed after the
+ * hedging delay, a second one is sent and whichever succeeds first wins.
+ * <p>
+ * The SDK offers no way to abort a request that was already sent, so the losing attempt is abandoned and its
+ * result is passed to {@code discard}, e.g. to close the response, as soon as it arrives. The request fails only
+ * if every attempt that was sent failed. The hedge is optional: if its supplier declines to send it, e.g. because
+ * the concurrency or rate limits have no permit left, the request waits for the first attempt alone.
+ */
+final class Hedger {
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * Runs a task after a delay.
+     */
+    @FunctionalInterface
+    interface Scheduler {
+        void schedule(Runnable task, long delayNanos);
+    }
+
+    private final HedgeConfig config;
+    private final Scheduler scheduler;
+    private final LongSupplier nanoClock;
+    private final LatencyWindow latencies;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    Hedger(HedgeConfig config) {
+        this(config, (task, delayNanos) -> CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS)
+                .execute(task), System::nanoTime);
+    }
+
+    Hedger(HedgeConfig config, Scheduler scheduler, LongSupplier nanoClock) {
+        this.config = config;
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+        this.latencies = new LatencyWindow(WINDOW_SIZE, config.percentile());
+    }
+
+    /**
+     * Sends the request and, after the hedging delay, a second identical one if no response arrived yet.
+     *
+     * @param request sends the first attempt of the request
+     * @param hedge   sends the second attempt, or returns null to skip it
+     * @param discard releases the result of a losing attempt
+     * @return the result of the first successful attempt
+     */
+    <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> request, Supplier<CompletableFuture<T>> hedge,
+                                  Consumer<T> discard) {
+        requests.increment();
+        Race<T> race = new Race<>(discard);
+        long start = nanoClock.getAsLong();
+        race.enter();
+        CompletableFuture<T> first = request.get();
+        first.whenComplete((result, e) -> {
+            if (e == null) {
+                latencies.add(nanoClock.getAsLong() - start);
+            }
+        });
+        race.track(first, false);
+        scheduler.schedule(() -> {
+            if (!race.enter()) {
+                return;
+            }
+            CompletableFuture<T> second;
+            try {
+                second = hedge.get();
+            } catch (RuntimeException e) {
+                second = CompletableFuture.failedFuture(e);
+            }
+            if (second == null) {
+                race.leave();
+                return;
+            }
+            hedged.increment();
+            race.track(second, true);
+        }, delayNanos());
+        return race.winner;
+    }
+
+    /**
+     * Returns the current hedging delay: the configured percentile of recent latencies within the bounds.
+     */
+    long delayNanos() {
+        long max = config.maxDelay().toNanos();
+        if (latencies.count() < MIN_SAMPLES) {
+            return max;
+        }
+        return Math.max(config.minDelay().toNanos(), Math.min(max, latencies.percentile()));
+    }
+
+    HedgeStats stats() {
+        return new HedgeStats(requests.sum(), hedged.sum(), hedgeWins.sum());
+    }
+
+    /**
+     * The attempts of one hedged request, completing the winner with the first success.
+     */
+    private final class Race<T> {
+        private final CompletableFuture<T> winner = new CompletableFuture<>();
+        private final Consumer<T> discard;
+        private int running;
+        private Throwable failure;
+
+        Race(Consumer<T> discard) {
+            this.discard = discard;
+        }
+
+        /**
+         * Registers another attempt, unless the request is already decided.
+         */
+        synchronized boolean enter() {
+            if (winner.isDone()) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        void track(CompletableFuture<T> attempt, boolean hedge) {
+            attempt.whenComplete((result, e) -> finish(result, e, hedge));
+        }
+
+        /**
+         * Withdraws an attempt registered with {@link #enter()} that was not sent after all.
+         */
+        void leave() {
+            Throwable e;
+            synchronized (this) {
+                if (--running > 0) {
+                    return;
+                }
+                e = failure;
+            }
+            if (e != null) {
+                winner.completeExceptionally(e);
+            }
+        }
+
+        private void finish(T result, Throwable e, boolean hedge) {
+            boolean last;
+            synchronized (this) {
+                last = --running == 0;
+                if (e != null) {
+                    failure = e;
+                }
+            }
+            if (e == null) {
+                if (winner.complete(result)) {
+                    if (hedge) {
+                        hedgeWins.increment();
+                    }
+                } else {
+                    discard.accept(result);
+                }
+            } else if (last) {
+                winner.completeExceptionally(e);
+            }
+        }
+    }
+}
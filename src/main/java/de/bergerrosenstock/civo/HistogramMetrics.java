@@ -0,0 +1,95 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link StorageMetrics} that records a latency histogram and counters per {@link StorageOperation} in memory,
+ * without any metrics library.
+ * <p>
+ * Recording takes a few atomic increments and never blocks, so one instance can be shared by several storage
+ * instances. Counters only grow; read them with {@link #stats(StorageOperation)} and compute rates from the
+ * differences between two snapshots.
+ */
+public final class HistogramMetrics implements StorageMetrics {
+
+    private static final class Recorder {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+
+    private final Map<StorageOperation, Recorder> recorders = new EnumMap<>(StorageOperation.class);
+
+    public HistogramMetrics() {
+        for (StorageOperation operation : StorageOperation.values()) {
+            recorders.put(operation, new Recorder());
+        }
+    }
+
+    @Override
+    public void started(StorageOperation operation) {
+        recorders.get(operation).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void succeeded(StorageOperation operation, long latencyNanos, long bytesIn, long bytesOut) {
+        Recorder recorder = completed(operation, latencyNanos);
+        recorder.bytesIn.add(bytesIn);
+        recorder.bytesOut.add(bytesOut);
+    }
+
+    @Override
+    public void failed(StorageOperation operation, long latencyNanos, String errorCode) {
+        Recorder recorder = completed(operation, latencyNanos);
+        recorder.failures.increment();
+        recorder.errors.computeIfAbsent(errorCode, code -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns a snapshot of the metrics of one operation.
+     *
+     * @param operation the operation
+     * @return the counters and latency percentiles recorded so far
+     */
+    public OperationStats stats(StorageOperation operation) {
+        Recorder recorder = recorders.get(operation);
+        Map<String, Long> errorsByCode = new HashMap<>();
+        recorder.errors.forEach((code, count) -> errorsByCode.put(code, count.sum()));
+        long[] latency = recorder.latency.quantiles(0.5, 0.9, 0.99);
+        return new OperationStats(recorder.requests.sum(), recorder.failures.sum(), recorder.inFlight.get(),
+                recorder.bytesIn.sum(), recorder.bytesOut.sum(), errorsByCode, Duration.ofNanos(latency[0]),
+                Duration.ofNanos(latency[1]), Duration.ofNanos(latency[2]),
+                Duration.ofNanos(recorder.latency.max()));
+    }
+
+    /**
+     * Returns snapshots of the metrics of all operations.
+     *
+     * @return the snapshot of every operation
+     */
+    public Map<StorageOperation, OperationStats> stats() {
+        Map<StorageOperation, OperationStats> stats = new EnumMap<>(StorageOperation.class);
+        for (StorageOperation operation : StorageOperation.values()) {
+            stats.put(operation, stats(operation));
+        }
+        return stats;
+    }
+
+    private Recorder completed(StorageOperation operation, long latencyNanos) {
+        Recorder recorder = recorders.get(operation);
+        recorder.inFlight.decrementAndGet();
+        recorder.requests.increment();
+        recorder.latency.record(latencyNanos);
+        return recorder;
+    }
+}
@@ -0,0 +1,53 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the HTTP client shared by all requests of a storage instance.
+ * <p>
+ * The MinIO SDK sends every request, including those of the blocking API, through the dispatcher of the HTTP
+ * client, so {@code maxRequestsPerHost} caps the number of requests in flight against the endpoint.
+ * The connection pool keeps up to {@code maxIdleConnections} idle connections open for {@code keepAlive}.
+ *
+ * @param maxIdleConnections the maximum number of idle connections kept in the pool
+ * @param keepAlive          how long an idle connection is kept open
+ * @param maxRequests        the maximum number of requests in flight over all hosts
+ * @param maxRequestsPerHost the maximum number of requests in flight to the endpoint
+ * @param connectTimeout     the timeout for establishing a connection
+ * @param readTimeout        the timeout between two reads of a response
+ * @param writeTimeout       the timeout between two writes of a request
+ */
+public record HttpClientConfig(int maxIdleConnections, Duration keepAlive, int maxRequests, int maxRequestsPerHost,
+                               Duration connectTimeout, Duration readTimeout, Duration writeTimeout) {
+
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 32;
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_REQUESTS = 128;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 64;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    public HttpClientConfig {
+        if (maxIdleConnections < 0) {
+            throw new IllegalArgumentException("maxIdleConnections must not be negative");
+        }
+        if (maxRequests < 1 || maxRequestsPerHost < 1) {
+            throw new IllegalArgumentException("maxRequests and maxRequestsPerHost must be at least 1");
+        }
+        Objects.requireNonNull(keepAlive, "keepAlive");
+        Objects.requireNonNull(connectTimeout, "connectTimeout");
+        Objects.requireNonNull(readTimeout, "readTimeout");
+        Objects.requireNonNull(writeTimeout, "writeTimeout");
+    }
+
+    /**
+     * Returns the default settings: 32 idle connections kept for five minutes, 64 requests in flight to the
+     * endpoint and five minute timeouts.
+     *
+     * @return the default HTTP client settings
+     */
+    public static HttpClientConfig defaults() {
+        return new HttpClientConfig(DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE, DEFAULT_MAX_REQUESTS,
+                DEFAULT_MAX_REQUESTS_PER_HOST, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT);
+    }
+}
@@ -0,0 +1,55 @@
+package de.bergerrosenstock.civo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers when keys were invalidated, so that a cache fill can tell whether its key was invalidated after the
+ * fill started, without discarding fills of other keys.
+ * <p>
+ * A fill takes a {@link #ticket()} before it reads from the object storage and passes it to
+ * {@link #isCurrent(String, long)} before it caches the result. Only the most recent {@code capacity}
+ * invalidations are kept; for keys invalidated longer ago, fills whose ticket predates the forgotten
+ * invalidations are rejected as if their key had been invalidated. Not thread-safe; the owning cache guards it
+ * with its own lock.
+ */
+final class Invalidations {
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    private final LinkedHashMap<String, Long> recent = new LinkedHashMap<>();
+    private final int capacity;
+    private long sequence;
+    private long forgottenUpTo;
+
+    Invalidations() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    Invalidations(int capacity) {
+        this.capacity = capacity;
+    }
+
+    long ticket() {
+        return sequence;
+    }
+
+    void invalidate(String key) {
+        sequence++;
+        recent.remove(key);
+        recent.put(key, sequence);
+        if (recent.size() > capacity) {
+            Iterator<Map.Entry<String, Long>> eldest = recent.entrySet().iterator();
+            forgottenUpTo = eldest.next().getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns whether the key was not invalidated since the ticket was taken.
+     */
+    boolean isCurrent(String key, long ticket) {
+        Long invalidatedAt = recent.get(key);
+        return invalidatedAt != null ? invalidatedAt <= ticket : forgottenUpTo <= ticket;
+    }
+}
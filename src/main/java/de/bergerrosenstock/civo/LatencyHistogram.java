@@ -0,0 +1,77 @@
+package de.bergerrosenstock.civo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets, in the style of HdrHistogram.
+ * <p>
+ * Values below {@value #SUB_BUCKETS} ns get a bucket each; above, every power of two is split into
+ * {@value #HALF} linear sub-buckets, so a bucket is at most 1/64 of its values wide. Recording is a single atomic
+ * increment, independent of the number of samples, and the whole range up to about 73 minutes fits into a fixed
+ * array of {@value #BUCKETS} counters. Longer values are recorded as the highest trackable value.
+ */
+final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF = SUB_BUCKETS / 2;
+    static final int MAX_VALUE_BITS = 42;
+    static final long MAX_TRACKABLE = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKETS = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 2) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE);
+        counts.incrementAndGet(index(value));
+        max.accumulate(value);
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the values at the given quantiles in one pass over the buckets, each as the highest value of its
+     * bucket. All values are 0 if nothing was recorded.
+     *
+     * @param quantiles ascending quantiles between 0 and 1
+     */
+    long[] quantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        long seen = 0;
+        int q = 0;
+        for (int i = 0; i < BUCKETS && q < quantiles.length; i++) {
+            seen += snapshot[i];
+            while (q < quantiles.length && seen >= Math.max(1, Math.ceil(quantiles[q] * total))) {
+                values[q++] = Math.min(highestEquivalent(i), max());
+            }
+        }
+        return values;
+    }
+
+    static int index(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift == 0 ? (int) value : shift * HALF + (int) (value >>> shift);
+    }
+
+    static long lowestEquivalent(int index) {
+        int shift = index < SUB_BUCKETS ? 0 : index / HALF - 1;
+        return (long) (index - shift * HALF) << shift;
+    }
+
+    static long highestEquivalent(int index) {
+        int shift = index < SUB_BUCKETS ? 0 : index / HALF - 1;
+        return ((long) (index - shift * HALF + 1) << shift) - 1;
+    }
+}
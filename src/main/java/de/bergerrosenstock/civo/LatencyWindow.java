@@ -0,0 +1,52 @@
+package de.bergerrosenstock.civo;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent latency samples with percentile lookup.
+ * <p>
+ * Percentiles are computed by sorting a copy of the window, at most once per {@value #RECOMPUTE_INTERVAL} new
+ * samples, so that lookups on the request path stay cheap.
+ */
+final class LatencyWindow {
+    static final int RECOMPUTE_INTERVAL = 64;
+
+    private final long[] samples;
+    private final double percentile;
+    private int count;
+    private int next;
+    private int sinceRecompute = RECOMPUTE_INTERVAL;
+    private long cached = -1;
+
+    LatencyWindow(int size, double percentile) {
+        this.samples = new long[size];
+        this.percentile = percentile;
+    }
+
+    synchronized void add(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sinceRecompute++;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Returns the configured percentile of the samples in the window, or -1 if the window is empty.
+     */
+    synchronized long percentile() {
+        if (count == 0) {
+            return -1;
+        }
+        if (sinceRecompute >= RECOMPUTE_INTERVAL || cached < 0) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            cached = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            sinceRecompute = 0;
+        }
+        return cached;
+    }
+}
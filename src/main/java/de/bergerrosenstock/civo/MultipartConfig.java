@@ -0,0 +1,36 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * Settings for parallel multipart uploads.
+ * <p>
+ * Objects up to {@code partSize} bytes are uploaded with a single request. Larger objects are split into
+ * parts of {@code partSize} bytes, of which at most {@code parallelism} are buffered and uploaded at the same time.
+ * Failed parts are retried as configured by the storage's {@link RetryConfig}.
+ *
+ * @param partSize    the size of each part in bytes, at least 5 MiB
+ * @param parallelism the maximum number of parts uploaded concurrently
+ */
+public record MultipartConfig(int partSize, int parallelism) {
+
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    public static final int DEFAULT_PART_SIZE = 16 * 1024 * 1024;
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public MultipartConfig {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException(String.format("partSize must be at least %d bytes", MIN_PART_SIZE));
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+    }
+
+    /**
+     * Returns the default settings: 16 MiB parts and four parts in flight.
+     *
+     * @return the default multipart settings
+     */
+    public static MultipartConfig defaults() {
+        return new MultipartConfig(DEFAULT_PART_SIZE, DEFAULT_PARALLELISM);
+    }
+}
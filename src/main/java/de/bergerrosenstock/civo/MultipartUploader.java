@@ -0,0 +1,328 @@
+package de.bergerrosenstock.civo;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.errors.MinioException;
+import io.minio.messages.Part;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads streams and files as S3 multipart uploads with a bounded number of parts in flight.
+ * <p>
+ * Stream parts are read sequentially from the source stream into memory and uploaded on virtual threads.
+ * A part is read only after a permit is available, so at most {@link MultipartConfig#parallelism()} parts
+ * are held in memory at a time. Failed parts are retried from their buffer under the retry policy of the
+ * request executor; when a part runs out of attempts the upload is aborted so no orphaned parts remain on the
+ * server. Every request except the abort is sent through the request executor's circuit breaker and limits, each
+ * part attempt with its size charged to the byte budget. The abort is sent regardless, so that an open circuit breaker does not leave orphaned parts.
+ */
+final class MultipartUploader {
+
+    /**
+     * A blocking request of the async client.
+     */
+    @FunctionalInterface
+    private interface Request<T> {
+        T send() throws MinioException, IOException, GeneralSecurityException, InterruptedException;
+    }
+
+    private static final int MAX_PARTS = 10_000;
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final CivoMinioAsyncClient client;
+    private final String bucket;
+    private final String region;
+    private final MultipartConfig config;
+    private final RequestExecutor requests;
+
+    /**
+     * @param region the bucket region, or null to let the client resolve it
+     */
+    MultipartUploader(CivoMinioAsyncClient client, String bucket, String region, MultipartConfig config,
+                      RequestExecutor requests) {
+        this.client = client;
+        this.bucket = bucket;
+        this.region = region;
+        this.config = config;
+        this.requests = requests;
+    }
+
+    /**
+     * Uploads the stream under the given key. Streams that turn out to fit into a single part are
+     * uploaded with one PUT request.
+     *
+     * @param size the size of the stream in bytes, or -1 if unknown
+     */
+    ObjectWriteResponse upload(String key, InputStream in, long size, String contentType, Map<String, String> userMeta)
+            throws CivoObjectStorageException {
+        int partSize = partSizeFor(size);
+        try {
+            byte[] first = readPart(in, partLength(size, 0, partSize), size);
+            if (first.length < partSize || first.length == size) {
+                return putSingle(key, first, contentType, userMeta);
+            }
+            return uploadParts(key, in, size, partSize, first, contentType, userMeta);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CivoObjectStorageException(String.format("Interrupted while multipart upload to key %s", key), e);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            throw new CivoObjectStorageException(String.format("Error while multipart upload to key %s", key), e);
+        }
+    }
+
+    private ObjectWriteResponse uploadParts(String key, InputStream in, long size, int partSize, byte[] first,
+                                            String contentType, Map<String, String> userMeta)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        String uploadId = requests.send(OperationClass.WRITE, 0,
+                call(() -> client.createUpload(bucket, region, key, headers(contentType, userMeta))));
+        Semaphore permits = new Semaphore(config.parallelism());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<Part>> parts = new ArrayList<>();
+        try {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                byte[] data = first;
+                long offset = 0;
+                permits.acquire();
+                while (data.length > 0) {
+                    int partNumber = parts.size() + 1;
+                    if (partNumber > MAX_PARTS) {
+                        permits.release();
+                        throw new IOException(String.format("Stream exceeds %d parts of %d bytes", MAX_PARTS, partSize));
+                    }
+                    byte[] part = data;
+                    parts.add(executor.submit(() -> {
+                        try {
+                            return uploadPart(key, uploadId, partNumber, part);
+                        } catch (Exception e) {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                    offset += data.length;
+                    permits.acquire();
+                    if (failure.get() != null) {
+                        permits.release();
+                        break;
+                    }
+                    data = readPart(in, partLength(size, offset, partSize), size < 0 ? -1 : size - offset);
+                    if (data.length == 0) {
+                        permits.release();
+                    }
+                }
+            }
+            return complete(key, uploadId, parts, failure);
+        } catch (Exception e) {
+            throw abort(key, uploadId, e);
+        }
+    }
+
+    /**
+     * Uploads a file under the given key. Each part is read with a positional read of its own region of the
+     * file inside the task that uploads it, so parts are read and uploaded in parallel. Files that fit into
+     * a single part are uploaded with one PUT request.
+     */
+    ObjectWriteResponse uploadFile(String key, Path file, String contentType, Map<String, String> userMeta)
+            throws CivoObjectStorageException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int partSize = partSizeFor(size);
+            if (size <= partSize) {
+                return putSingle(key, readAt(channel, 0, (int) size), contentType, userMeta);
+            }
+            return uploadFileParts(key, channel, size, partSize, contentType, userMeta);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CivoObjectStorageException(String.format("Interrupted while upload file %s to key %s", file, key), e);
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            throw new CivoObjectStorageException(String.format("Error while upload file %s to key %s", file, key), e);
+        }
+    }
+
+    private ObjectWriteResponse uploadFileParts(String key, FileChannel channel, long size, int partSize,
+                                                String contentType, Map<String, String> userMeta)
+            throws MinioException, IOException, GeneralSecurityException, InterruptedException {
+        String uploadId = requests.send(OperationClass.WRITE, 0,
+                call(() -> client.createUpload(bucket, region, key, headers(contentType, userMeta))));
+        Semaphore permits = new Semaphore(config.parallelism());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<Part>> parts = new ArrayList<>();
+        try {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (long offset = 0; offset < size; offset += partSize) {
+                    int partNumber = parts.size() + 1;
+                    long partOffset = offset;
+                    int length = partLength(size, offset, partSize);
+                    parts.add(executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            if (failure.get() != null) {
+                                return null;
+                            }
+                            return uploadPart(key, uploadId, partNumber, readAt(channel, partOffset, length));
+                        } catch (Exception e) {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+            }
+            return complete(key, uploadId, parts, failure);
+        } catch (Exception e) {
+            throw abort(key, uploadId, e);
+        }
+    }
+
+    private ObjectWriteResponse complete(String key, String uploadId, List<Future<Part>> parts,
+                                         AtomicReference<Exception> failure) throws Exception {
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        Part[] completed = new Part[parts.size()];
+        for (int i = 0; i < completed.length; i++) {
+            completed[i] = parts.get(i).get();
+        }
+        return requests.send(OperationClass.WRITE, 0,
+                call(() -> client.completeUpload(bucket, region, key, uploadId, completed)));
+    }
+
+    /**
+     * Aborts the multipart upload and rethrows the failure unwrapped to one of the exception types the
+     * callers handle. Returns the failure as {@link IOException} when it is of none of these types.
+     */
+    private IOException abort(String key, String uploadId, Exception e)
+            throws MinioException, GeneralSecurityException, InterruptedException {
+        abortQuietly(key, uploadId, e);
+        if (e instanceof ExecutionException ee && ee.getCause() instanceof Exception cause) {
+            e = cause;
+        }
+        if (e instanceof MinioException me) throw me;
+        if (e instanceof GeneralSecurityException gse) throw gse;
+        if (e instanceof InterruptedException ie) throw ie;
+        if (e instanceof RuntimeException re) throw re;
+        if (e instanceof IOException ioe) return ioe;
+        return new IOException(e);
+    }
+
+    private Part uploadPart(String key, String uploadId, int partNumber, byte[] data)
+            throws MinioException, IOException, GeneralSecurityException {
+        return new Part(partNumber, requests.execute(OperationClass.WRITE, data.length,
+                call(() -> client.uploadPart(bucket, region, key, uploadId, partNumber, data)), () -> {
+                }));
+    }
+
+    private ObjectWriteResponse putSingle(String key, byte[] data, String contentType, Map<String, String> userMeta)
+            throws MinioException, IOException, GeneralSecurityException {
+        return requests.execute(OperationClass.WRITE, data.length, call(() -> {
+            PutObjectArgs.Builder b = PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(key)
+                    .stream(new ByteArrayInputStream(data), data.length, -1)
+                    .contentType(contentType);
+            if (userMeta != null && !userMeta.isEmpty()) {
+                b.userMetadata(userMeta);
+            }
+            return CivoMinioAsyncClient.await(client.putObject(b.build()));
+        }), () -> {
+        });
+    }
+
+    /**
+     * Adapts a blocking request of the async client to the request executor, which passes on an interrupt as
+     * {@link InterruptedIOException}.
+     */
+    private static <T> RetryPolicy.Call<T> call(Request<T> request) {
+        return () -> {
+            try {
+                return request.send();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a response");
+            }
+        };
+    }
+
+    private void abortQuietly(String key, String uploadId, Exception cause) {
+        try {
+            client.abortUpload(bucket, region, key, uploadId);
+        } catch (Exception e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Returns the configured part size, enlarged if a stream of known size would otherwise exceed the part limit.
+     */
+    private int partSizeFor(long size) {
+        long minimum = size > 0 ? (size + MAX_PARTS - 1) / MAX_PARTS : 0;
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(config.partSize(), minimum));
+    }
+
+    private static int partLength(long size, long offset, int partSize) {
+        return size < 0 ? partSize : (int) Math.min(partSize, size - offset);
+    }
+
+    /**
+     * Reads {@code length} bytes starting at {@code offset} without moving the channel position,
+     * so concurrent parts can share the channel and a retried part can be read again.
+     */
+    private static byte[] readAt(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException(String.format("File ended after %d of %d bytes at offset %d",
+                        buffer.position(), length, offset));
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads up to {@code length} bytes. Only the last part of a stream of unknown size may come back shorter.
+     */
+    private static byte[] readPart(InputStream in, int length, long remaining) throws IOException {
+        byte[] buffer = new byte[length];
+        int read = in.readNBytes(buffer, 0, length);
+        if (read == length) {
+            return buffer;
+        }
+        if (remaining >= 0) {
+            throw new IOException(String.format("Stream ended after %d of %d remaining bytes", read, remaining));
+        }
+        return Arrays.copyOf(buffer, read);
+    }
+
+    private static Multimap<String, String> headers(String contentType, Map<String, String> userMeta) {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType != null ? contentType : DEFAULT_CONTENT_TYPE);
+        if (userMeta != null) {
+            userMeta.forEach((name, value) -> headers.put("x-amz-meta-" + name, value));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,139 @@
+package de.bergerrosenstock.civo;
+
+import de.bergerrosenstock.civo.CivoObjectStorage.StoredObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Least-recently-used cache of stored objects, bounded by the total size of the object data.
+ * <p>
+ * Invalidations are tracked per key. A read passes the generation it observed before fetching to
+ * {@link #put(String, StoredObject, long)}, and is not cached if its key was invalidated in the meantime, so a
+ * read racing with a write through the same storage instance cannot bring back the overwritten object, while
+ * writes to other keys do not affect it.
+ * <p>
+ * Expired entries that carry an ETag are kept until they are evicted, so they can be revalidated with a
+ * conditional request and refreshed in place with {@link #refresh(String, StoredObject, long)}.
+ */
+final class ObjectCache {
+    private record Entry(StoredObject object, long expiresAt) {
+        long weight() {
+            return object.data().length;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private long bytes;
+    private final Invalidations invalidations = new Invalidations();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long revalidations;
+
+    ObjectCache(ObjectCacheConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    ObjectCache(ObjectCacheConfig config, LongSupplier nanoClock) {
+        this.maxBytes = config.maxBytes();
+        this.ttlNanos = config.ttl().toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the current generation, to be passed to {@link #put(String, StoredObject, long)} after the fetch.
+     */
+    synchronized long generation() {
+        return invalidations.ticket();
+    }
+
+    /**
+     * Returns the cached object, or null if it is not cached or expired.
+     */
+    synchronized StoredObject get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            if (entry.object().etag() == null) {
+                remove(key);
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.object();
+    }
+
+    /**
+     * Returns the expired object kept for revalidation, or null if there is none.
+     */
+    synchronized StoredObject getStale(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && isExpired(entry) ? entry.object() : null;
+    }
+
+    /**
+     * Restarts the TTL of an entry that was confirmed unchanged by the server, unless it was invalidated or
+     * replaced since {@code generation} was read.
+     */
+    synchronized void refresh(String key, StoredObject object, long generation) {
+        Entry entry = entries.get(key);
+        if (!invalidations.isCurrent(key, generation) || entry == null || entry.object() != object) {
+            return;
+        }
+        entries.put(key, new Entry(object, nanoClock.getAsLong() + ttlNanos));
+        revalidations++;
+    }
+
+    /**
+     * Caches the object unless the key was invalidated since {@code generation} was read or the object alone
+     * exceeds the size bound. Evicts least recently used entries until the cache fits its bound again.
+     */
+    synchronized void put(String key, StoredObject object, long generation) {
+        if (!invalidations.isCurrent(key, generation) || object.data().length > maxBytes) {
+            return;
+        }
+        remove(key);
+        Entry entry = new Entry(object, nanoClock.getAsLong() + ttlNanos);
+        entries.put(key, entry);
+        bytes += entry.weight();
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the key from the cache and prevents reads that are in flight from caching it.
+     */
+    synchronized void invalidate(String key) {
+        invalidations.invalidate(key);
+        remove(key);
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, revalidations, entries.size(), bytes);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.expiresAt() - nanoClock.getAsLong() <= 0;
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.weight();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the in-memory object cache in front of {@link CivoObjectStorage#getObject(String)}.
+ *
+ * @param maxBytes the maximum total size of cached object data in bytes
+ * @param ttl      how long a cached object is served without asking the server; expired objects with an ETag are
+ *                 revalidated with a conditional request, so a zero TTL revalidates on every read
+ */
+public record ObjectCacheConfig(long maxBytes, Duration ttl) {
+
+    public ObjectCacheConfig {
+        Objects.requireNonNull(ttl, "ttl");
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1");
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+    }
+}
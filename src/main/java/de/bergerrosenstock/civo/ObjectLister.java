@@ -0,0 +1,163 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.Result;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lists the keys of a bucket lazily, one ListObjectsV2 request per page, following the continuation token of the
+ * previous page. Every page is requested through the request executor, so it passes the circuit breaker, the list
+ * rate limit and the concurrency limiter, regardless of how many keys the page holds. A failed page is retried
+ * under the retry policy with the same continuation token, so the listing resumes after the last key returned.
+ */
+final class ObjectLister {
+    static final int PAGE_SIZE = 1000;
+    /**
+     * The order of keys in a listing: S3 compares keys by their UTF-8 bytes.
+     */
+    static final Comparator<String> KEY_ORDER =
+            Comparator.comparing(key -> key.getBytes(StandardCharsets.UTF_8), Arrays::compareUnsigned);
+    private static final Comparator<Item> ITEM_ORDER = Comparator.comparing(Item::objectName, KEY_ORDER);
+
+    private final CivoMinioAsyncClient client;
+    private final String bucket;
+    private final String region;
+    private final RequestExecutor requests;
+
+    ObjectLister(CivoMinioAsyncClient client, String bucket, String region, RequestExecutor requests) {
+        this.client = client;
+        this.bucket = bucket;
+        this.region = region;
+        this.requests = requests;
+    }
+
+    /**
+     * Returns the lazily paginated listing. A rejected page or a page that failed all attempts is returned as
+     * failed result and ends the iteration.
+     */
+    Iterable<Result<Item>> listPages(String prefix, boolean recursive) {
+        String delimiter = recursive ? null : "/";
+        return () -> new Iterator<>() {
+            private Iterator<Item> page = List.<Item>of().iterator();
+            private String continuationToken;
+            private Result<Item> failure;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && failure == null && !done) {
+                    try {
+                        CivoMinioAsyncClient.ListPage next = requests.execute(OperationClass.LIST,
+                                () -> listPage(prefix, delimiter, continuationToken));
+                        page = pageInKeyOrder(next.items(), delimiter);
+                        continuationToken = next.continuationToken();
+                        done = continuationToken == null;
+                    } catch (MinioException | IOException | GeneralSecurityException e) {
+                        failure = new Result<>(e);
+                    }
+                }
+                return page.hasNext() || failure != null;
+            }
+
+            @Override
+            public Result<Item> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (page.hasNext()) {
+                    return new Result<>(page.next());
+                }
+                Result<Item> result = failure;
+                failure = null;
+                done = true;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns the shards of a directory-wise listing, read lazily from the non-recursive listing of the prefix:
+     * every common prefix becomes a recursive listing, and consecutive objects directly below the prefix become
+     * shards of at most one page. A failed top-level page ends the shards with a shard holding the failure.
+     */
+    Iterable<Iterable<Result<Item>>> directoryShards(String prefix) {
+        Iterable<Result<Item>> top = listPages(prefix, false);
+        return () -> new Iterator<>() {
+            private final Iterator<Result<Item>> delegate = top.iterator();
+            private Item directory;
+            private boolean failed;
+
+            @Override
+            public boolean hasNext() {
+                return directory != null || !failed && delegate.hasNext();
+            }
+
+            @Override
+            public Iterable<Result<Item>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (directory != null) {
+                    Item item = directory;
+                    directory = null;
+                    return listPages(item.objectName(), true);
+                }
+                List<Result<Item>> objects = new ArrayList<>();
+                while (objects.size() < PAGE_SIZE && delegate.hasNext()) {
+                    Result<Item> result = delegate.next();
+                    Item item;
+                    try {
+                        item = result.get();
+                    } catch (Exception e) {
+                        objects.add(result);
+                        failed = true;
+                        break;
+                    }
+                    if (item.isDir()) {
+                        if (objects.isEmpty()) {
+                            return listPages(item.objectName(), true);
+                        }
+                        directory = item;
+                        break;
+                    }
+                    objects.add(result);
+                }
+                return objects;
+            }
+        };
+    }
+
+    /**
+     * A page lists its objects before its common prefixes, while the page as a whole covers a range of keys. The
+     * merged, sorted page is therefore in key order across pages, which ordered listings rely on.
+     */
+    private static Iterator<Item> pageInKeyOrder(List<Item> items, String delimiter) {
+        if (delimiter == null) {
+            return items.iterator();
+        }
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(ITEM_ORDER);
+        return sorted.iterator();
+    }
+
+    private CivoMinioAsyncClient.ListPage listPage(String prefix, String delimiter, String continuationToken)
+            throws MinioException, IOException, GeneralSecurityException {
+        try {
+            return client.listPage(bucket, region, prefix, delimiter, continuationToken, PAGE_SIZE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * The classes of requests that client-side limits and metrics distinguish.
+ */
+public enum OperationClass {
+    /**
+     * GET and HEAD requests for objects, including byte ranges.
+     */
+    READ,
+    /**
+     * PUT requests and the requests of multipart uploads.
+     */
+    WRITE,
+    /**
+     * List requests, one per page of keys.
+     */
+    LIST,
+    /**
+     * Single and multi-object delete requests.
+     */
+    DELETE
+}
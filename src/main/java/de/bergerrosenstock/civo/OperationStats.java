@@ -0,0 +1,37 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A snapshot of the metrics of one {@link StorageOperation} recorded by {@link HistogramMetrics}.
+ * Latencies cover all completed calls, failed ones included, and are accurate to about 1.6%.
+ *
+ * @param requests     the number of completed calls
+ * @param failures     the number of failed calls
+ * @param inFlight     the number of calls currently running
+ * @param bytesIn      the number of object bytes returned
+ * @param bytesOut     the number of object bytes stored
+ * @param errorsByCode the number of failures per S3 error code or failure class name
+ * @param p50          the median latency
+ * @param p90          the 90th percentile latency
+ * @param p99          the 99th percentile latency
+ * @param max          the highest latency
+ */
+public record OperationStats(long requests, long failures, int inFlight, long bytesIn, long bytesOut,
+                             Map<String, Long> errorsByCode, Duration p50, Duration p90, Duration p99,
+                             Duration max) {
+
+    public OperationStats {
+        errorsByCode = Map.copyOf(errorsByCode);
+    }
+
+    /**
+     * Returns the share of calls that failed.
+     *
+     * @return the error rate between 0 and 1, or 0 if there were no calls
+     */
+    public double errorRate() {
+        return requests == 0 ? 0 : (double) failures / requests;
+    }
+}
@@ -0,0 +1,78 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.Result;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator that concatenates the elements of several sources in source order while prefetching the next
+ * sources in the background.
+ * <p>
+ * Up to {@code parallelism} sources are listed at the same time, each into its own {@link PrefetchingIterator}
+ * with the given capacity; a source is started as soon as an earlier one has been consumed completely.
+ * The capacity bounds how far the sources behind the current one can get ahead of the caller. The sources
+ * themselves are taken from their iterable on the caller's thread only when they are started, so they can be
+ * produced lazily, e.g. from another listing.
+ */
+final class OrderedShardIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Iterator<? extends Iterable<Result<T>>> pending;
+    private final Deque<PrefetchingIterator<T>> running = new ArrayDeque<>();
+    private final int parallelism;
+    private final int capacity;
+    private final String description;
+
+    OrderedShardIterator(Iterable<? extends Iterable<Result<T>>> sources, int parallelism, int capacity,
+                         String description) {
+        this.pending = sources.iterator();
+        this.parallelism = parallelism;
+        this.capacity = capacity;
+        this.description = description;
+    }
+
+    /**
+     * Returns a sequential, ordered stream over the iterator that stops the producers when the stream is closed.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            while (running.size() < parallelism && pending.hasNext()) {
+                running.add(new PrefetchingIterator<>(pending.next(), capacity, description));
+            }
+            PrefetchingIterator<T> current = running.peek();
+            if (current == null) {
+                return false;
+            }
+            if (current.hasNext()) {
+                return true;
+            }
+            running.poll().close();
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return running.peek().next();
+    }
+
+    @Override
+    public void close() {
+        running.forEach(PrefetchingIterator::close);
+        running.clear();
+    }
+}
@@ -0,0 +1,143 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.Result;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator that drains lazily paginated MinIO result sequences on virtual threads into a bounded queue.
+ * <p>
+ * With a queue capacity of one page, the producer requests the next page as soon as the last element of the
+ * current page fits into the queue, so the list request overlaps with the caller processing the current page.
+ * Several sources are drained concurrently, up to the given parallelism, and their elements are interleaved
+ * in arrival order. The iterator must be closed if it is not consumed to the end, otherwise the producers
+ * stay blocked.
+ */
+final class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+    private static final Object END = new Object();
+
+    private record Failure(CivoObjectStorageException exception) {
+    }
+
+    private final BlockingQueue<Object> queue;
+    private final String description;
+    private final boolean ordered;
+    private final Thread producer;
+    private Object next;
+
+    PrefetchingIterator(Iterable<Result<T>> source, int capacity, String description) {
+        this(List.of(source), 1, capacity, description, true);
+    }
+
+    /**
+     * @param sources the sources, taken from their iterable on the producer thread as parallelism permits, so
+     *                they can be produced lazily
+     */
+    PrefetchingIterator(Iterable<? extends Iterable<Result<T>>> sources, int parallelism, int capacity,
+                        String description) {
+        this(sources, parallelism, capacity, description, false);
+    }
+
+    private PrefetchingIterator(Iterable<? extends Iterable<Result<T>>> sources, int parallelism, int capacity,
+                                String description, boolean ordered) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.description = description;
+        this.ordered = ordered;
+        this.producer = Thread.ofVirtual().name("civo-prefetch").start(() -> {
+            try {
+                drainAll(sources, parallelism);
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // closed by the consumer
+            }
+        });
+    }
+
+    private void drainAll(Iterable<? extends Iterable<Result<T>>> sources, int parallelism) throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (Iterable<Result<T>> source : sources) {
+                    permits.acquire();
+                    executor.submit(() -> {
+                        try {
+                            drain(source);
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    });
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    private void drain(Iterable<Result<T>> source) throws InterruptedException {
+        try {
+            for (Result<T> result : source) {
+                queue.put(result.get());
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            queue.put(new Failure(new CivoObjectStorageException(String.format("Error while %s", description), e)));
+        }
+    }
+
+    /**
+     * Returns a sequential stream over the iterator that stops the producers when the stream is closed.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedCivoObjectStorageException(
+                        new CivoObjectStorageException("Interrupted while waiting for the next element", e));
+            }
+        }
+        if (next instanceof Failure failure) {
+            throw new UncheckedCivoObjectStorageException(failure.exception());
+        }
+        return next != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T element = (T) next;
+        next = null;
+        return element;
+    }
+
+    @Override
+    public void close() {
+        producer.interrupt();
+    }
+}
@@ -0,0 +1,35 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * Settings for parallel ranged downloads.
+ * <p>
+ * Objects are split into byte ranges of {@code chunkSize} bytes, of which at most {@code parallelism}
+ * are fetched at the same time.
+ *
+ * @param chunkSize   the size of each byte range in bytes
+ * @param parallelism the maximum number of ranges fetched concurrently
+ */
+public record RangedDownloadConfig(int chunkSize, int parallelism) {
+
+    public static final int MIN_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public RangedDownloadConfig {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException(String.format("chunkSize must be at least %d bytes", MIN_CHUNK_SIZE));
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+    }
+
+    /**
+     * Returns the default settings: 8 MiB ranges with four ranges in flight.
+     *
+     * @return the default ranged download settings
+     */
+    public static RangedDownloadConfig defaults() {
+        return new RangedDownloadConfig(DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM);
+    }
+}
@@ -0,0 +1,166 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import io.minio.errors.MinioException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Downloads objects as concurrent byte-range GET requests.
+ * <p>
+ * Every range is requested with the ETag of the initial stat as {@code If-Match} condition, so an object
+ * that is overwritten during the download fails the download instead of mixing two versions. Each range is
+ * sent through the request executor, so it is retried after transient failures and waits for the read rate
+ * limit with its length charged to the byte budget.
+ */
+final class RangedDownloader {
+
+    /**
+     * Receives the body of one byte range. Ranges arrive concurrently and in no particular order, and a range is
+     * written again from its start when its request is retried, so sinks must write each range at its offset.
+     */
+    @FunctionalInterface
+    interface RangeSink {
+        void write(long offset, int length, InputStream in) throws IOException;
+    }
+
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+    private final MinioClient minio;
+    private final String bucket;
+    private final RangedDownloadConfig config;
+    private final RequestExecutor requests;
+
+    RangedDownloader(MinioClient minio, String bucket, RangedDownloadConfig config, RequestExecutor requests) {
+        this.minio = minio;
+        this.bucket = bucket;
+        this.config = config;
+        this.requests = requests;
+    }
+
+    /**
+     * Downloads the object described by {@code stat} into the sink.
+     */
+    void download(String key, StatObjectResponse stat, RangeSink sink) throws CivoObjectStorageException {
+        Semaphore permits = new Semaphore(config.parallelism());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long offset = 0; offset < stat.size(); offset += config.chunkSize()) {
+                long rangeOffset = offset;
+                int length = (int) Math.min(config.chunkSize(), stat.size() - offset);
+                executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        if (failure.get() == null) {
+                            fetch(key, stat.etag(), rangeOffset, length, sink);
+                        }
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw new CivoObjectStorageException(String.format("Error while ranged get object %s", key), failure.get());
+        }
+    }
+
+    private void fetch(String key, String etag, long offset, int length, RangeSink sink)
+            throws MinioException, IOException, GeneralSecurityException {
+        requests.execute(OperationClass.READ, length, () -> {
+            try (GetObjectResponse response = minio.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(key)
+                            .offset(offset)
+                            .length((long) length)
+                            .matchETag(etag)
+                            .build()
+            )) {
+                sink.write(offset, length, response);
+            }
+            return null;
+        }, () -> {
+        });
+    }
+
+    /**
+     * Returns a sink that writes each range at its offset into {@code file} using positional writes,
+     * so ranges can be written concurrently. Data is moved through a direct buffer per range.
+     */
+    static RangeSink into(FileChannel file) {
+        return (offset, length, in) -> {
+            ReadableByteChannel channel = Channels.newChannel(in);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.min(length, FILE_BUFFER_SIZE));
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException(String.format("Range at %d ended after %d of %d bytes",
+                            offset, position - offset, length));
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += file.write(buffer, position);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a sink that writes each range into {@code target}, relative to its current position.
+     * The position of {@code target} is not modified. A range beyond the remaining bytes of {@code target} fails
+     * with an {@link IllegalArgumentException}, which is not retried.
+     */
+    static RangeSink into(ByteBuffer target) {
+        int base = target.position();
+        int remaining = target.remaining();
+        if (target.hasArray()) {
+            byte[] array = target.array();
+            int arrayBase = target.arrayOffset() + base;
+            return (offset, length, in) -> {
+                checkFits(offset, length, remaining);
+                int read = in.readNBytes(array, arrayBase + (int) offset, length);
+                if (read < length) {
+                    throw new EOFException(String.format("Range at %d ended after %d of %d bytes", offset, read, length));
+                }
+            };
+        }
+        return (offset, length, in) -> {
+            checkFits(offset, length, remaining);
+            ByteBuffer slice = target.slice(base + (int) offset, length);
+            ReadableByteChannel channel = Channels.newChannel(in);
+            while (slice.hasRemaining()) {
+                if (channel.read(slice) < 0) {
+                    throw new EOFException(String.format("Range at %d ended after %d of %d bytes",
+                            offset, slice.position(), length));
+                }
+            }
+        };
+    }
+
+    private static void checkFits(long offset, int length, int remaining) {
+        if (offset + length > remaining) {
+            throw new IllegalArgumentException(String.format("Range at %d with %d bytes exceeds the %d remaining buffer bytes",
+                    offset, length, remaining));
+        }
+    }
+}
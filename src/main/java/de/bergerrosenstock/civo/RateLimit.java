@@ -0,0 +1,30 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A token-bucket budget for one {@link OperationClass}.
+ * <p>
+ * Both budgets allow bursts of one second's worth of requests or bytes. A request that exceeds the budget waits
+ * until enough tokens have accumulated, but not longer than {@code maxWait}; if the wait would be longer it is
+ * rejected with a {@link RequestRejectedException} cause. A zero {@code maxWait} makes requests fail fast.
+ * Bytes of reads are only known once the response arrives, so they are charged afterwards and delay the
+ * following requests.
+ *
+ * @param requestsPerSecond the sustained number of requests per second, or 0 for no request limit
+ * @param bytesPerSecond    the sustained number of body bytes per second, or 0 for no byte limit
+ * @param maxWait           how long a request may wait for its budget
+ */
+public record RateLimit(double requestsPerSecond, long bytesPerSecond, Duration maxWait) {
+
+    public RateLimit {
+        Objects.requireNonNull(maxWait, "maxWait");
+        if (requestsPerSecond < 0 || bytesPerSecond < 0) {
+            throw new IllegalArgumentException("rates must not be negative");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait must not be negative");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.bergerrosenstock.civo;
+
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Enforces the {@link RateLimit} budgets of each {@link OperationClass} with a request and a byte bucket.
+ */
+final class RateLimiter {
+
+    private record Budget(RateLimit limit, TokenBucket requests, TokenBucket bytes) {
+    }
+
+    private final Map<OperationClass, Budget> budgets = new EnumMap<>(OperationClass.class);
+
+    RateLimiter(Map<OperationClass, RateLimit> limits) {
+        this(limits, System::nanoTime);
+    }
+
+    RateLimiter(Map<OperationClass, RateLimit> limits, LongSupplier nanoClock) {
+        limits.forEach((operation, limit) -> budgets.put(operation, new Budget(limit,
+                limit.requestsPerSecond() > 0 ? new TokenBucket(limit.requestsPerSecond(), nanoClock) : null,
+                limit.bytesPerSecond() > 0 ? new TokenBucket(limit.bytesPerSecond(), nanoClock) : null)));
+    }
+
+    /**
+     * Takes one request and the given bytes from the budget of the operation class, waiting if necessary.
+     *
+     * @throws RequestRejectedException if the budget would not allow the request within the maximum wait
+     * @throws InterruptedIOException   if the thread is interrupted while waiting
+     */
+    void acquire(OperationClass operation, long bytes) throws RequestRejectedException, InterruptedIOException {
+        Budget budget = budgets.get(operation);
+        if (budget == null) {
+            return;
+        }
+        long wait;
+        synchronized (budget) {
+            wait = Math.max(waitNanos(budget.requests(), 1), waitNanos(budget.bytes(), bytes));
+            if (wait > budget.limit().maxWait().toNanos()) {
+                throw new RequestRejectedException(String.format("Rate limit for %s requests exceeded", operation));
+            }
+            take(budget.requests(), 1);
+            take(budget.bytes(), bytes);
+        }
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+        }
+    }
+
+    /**
+     * Takes one request and the given bytes from the budget of the operation class if they are available now.
+     *
+     * @return whether the budget allowed the request without waiting
+     */
+    boolean tryAcquire(OperationClass operation, long bytes) {
+        Budget budget = budgets.get(operation);
+        if (budget == null) {
+            return true;
+        }
+        synchronized (budget) {
+            if (waitNanos(budget.requests(), 1) > 0 || waitNanos(budget.bytes(), bytes) > 0) {
+                return false;
+            }
+            take(budget.requests(), 1);
+            take(budget.bytes(), bytes);
+            return true;
+        }
+    }
+
+    /**
+     * Charges bytes that were only known after the request, e.g. the body of a read, without waiting.
+     */
+    void charge(OperationClass operation, long bytes) {
+        Budget budget = budgets.get(operation);
+        if (budget != null && bytes > 0) {
+            take(budget.bytes(), bytes);
+        }
+    }
+
+    private static long waitNanos(TokenBucket bucket, double amount) {
+        return bucket == null || amount <= 0 ? 0 : bucket.waitNanos(amount);
+    }
+
+    private static void take(TokenBucket bucket, double amount) {
+        if (bucket != null && amount > 0) {
+            bucket.take(amount);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.errors.MinioException;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Sends the requests of a storage instance through its retry policy and, if configured, its circuit breaker,
+ * rate limits and adaptive concurrency limiter. Every attempt of a request passes the circuit breaker, is rate
+ * limited and takes its own limiter slot, so retries wait like new requests and stop once the breaker opens.
+ */
+final class RequestExecutor {
+    private final RetryPolicy retry;
+    private final ConcurrencyLimiter limiter;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreaker breaker;
+
+    /**
+     * @param limiter     the concurrency limiter, or null to send requests without limit
+     * @param rateLimiter the rate limiter, or null to send requests without rate limits
+     * @param breaker     the circuit breaker, or null to send requests regardless of earlier failures
+     */
+    RequestExecutor(RetryPolicy retry, ConcurrencyLimiter limiter, RateLimiter rateLimiter, CircuitBreaker breaker) {
+        this.retry = retry;
+        this.limiter = limiter;
+        this.rateLimiter = rateLimiter;
+        this.breaker = breaker;
+    }
+
+    <T> T execute(OperationClass operation, RetryPolicy.Call<T> call)
+            throws MinioException, IOException, GeneralSecurityException {
+        return retry.execute(() -> send(operation, 0, call));
+    }
+
+    /**
+     * @param bytes  the size of the request body, charged to the byte budget of each attempt
+     * @param rewind prepares the body for the next attempt, or null if the body cannot be sent again
+     */
+    <T> T execute(OperationClass operation, long bytes, RetryPolicy.Call<T> call, RetryPolicy.Rewind rewind)
+            throws MinioException, IOException, GeneralSecurityException {
+        return retry.execute(() -> send(operation, bytes, call), rewind);
+    }
+
+    /**
+     * Charges response bytes that were not known before the request to the byte budget.
+     */
+    void charge(OperationClass operation, long bytes) {
+        if (rateLimiter != null) {
+            rateLimiter.charge(operation, bytes);
+        }
+    }
+
+    /**
+     * Sends a request once through the circuit breaker, the rate limits and the concurrency limiter, without
+     * retrying it, e.g. the start of a multipart upload, which would leave an orphaned upload behind if sent
+     * twice. Failures must be thrown by the call to count for the circuit breaker.
+     *
+     * @param bytes the size of the request body, charged to the byte budget
+     */
+    <T> T send(OperationClass operation, long bytes, RetryPolicy.Call<T> call)
+            throws MinioException, IOException, GeneralSecurityException {
+        if (breaker == null) {
+            return limit(operation, bytes, call);
+        }
+        long permit = breaker.acquire();
+        try {
+            T result = limit(operation, bytes, call);
+            breaker.record(permit, false);
+            return result;
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            if (e instanceof RequestRejectedException || Thread.currentThread().isInterrupted()) {
+                breaker.cancel(permit);
+            } else {
+                breaker.record(permit, RetryPolicy.isRetryable(e));
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            breaker.cancel(permit);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts an optional extra attempt of a request, e.g. a hedge, if the rate limits and the concurrency
+     * limiter admit it without waiting. Its limiter slot is held until the attempt completes.
+     *
+     * @return the attempt, or null if it was not started
+     */
+    <T> CompletableFuture<T> tryStart(OperationClass operation, Supplier<CompletableFuture<T>> attempt) {
+        if (rateLimiter != null && !rateLimiter.tryAcquire(operation, 0)) {
+            return null;
+        }
+        if (limiter == null) {
+            return attempt.get();
+        }
+        Long start = limiter.tryAcquire();
+        if (start == null) {
+            return null;
+        }
+        CompletableFuture<T> started;
+        try {
+            started = attempt.get();
+        } catch (RuntimeException | Error e) {
+            limiter.release(start, false);
+            throw e;
+        }
+        return started.whenComplete((result, e) -> limiter.release(start, overloaded(e)));
+    }
+
+    private static boolean overloaded(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e instanceof Exception cause && RetryPolicy.isRetryable(cause);
+    }
+
+    private <T> T limit(OperationClass operation, long bytes, RetryPolicy.Call<T> call)
+            throws MinioException, IOException, GeneralSecurityException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(operation, bytes);
+        }
+        if (limiter == null) {
+            return call.call();
+        }
+        long start = limiter.acquire();
+        boolean overloaded = false;
+        try {
+            return call.call();
+        } catch (MinioException | IOException | GeneralSecurityException e) {
+            overloaded = RetryPolicy.isRetryable(e);
+            throw e;
+        } finally {
+            limiter.release(start, overloaded);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package de.bergerrosenstock.civo;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request was not sent because a client-side limit protecting the object storage refused it.
+ * It is thrown as cause of a {@link CivoObjectStorageException} and is never retried.
+ */
+public class RequestRejectedException extends IOException {
+    public RequestRejectedException(String message) {
+        super(message);
+    }
+}
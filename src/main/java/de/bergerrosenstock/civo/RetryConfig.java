@@ -0,0 +1,67 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for retrying requests that failed with a transient error, such as {@code 503 SlowDown} or a
+ * connection reset.
+ * <p>
+ * The delay before retry {@code n} grows as {@code baseDelay * 2^(n-1)}, capped at {@code maxDelay}, and is
+ * reduced by a random share of up to {@code jitter} so that clients failing together do not retry together.
+ * Retries are limited by a budget: every request adds {@code budgetRatio} retry tokens, up to
+ * {@value #BUDGET_CAPACITY}, and every retry spends one, so a storage outage does not multiply the load by
+ * {@code maxAttempts}.
+ *
+ * @param maxAttempts the number of attempts per request, 1 disables retries
+ * @param baseDelay   the delay before the first retry
+ * @param maxDelay    the upper bound of the delay between attempts
+ * @param jitter      the share of each delay that is randomized, between 0 (none) and 1 (full jitter)
+ * @param budgetRatio the number of retries earned per request, e.g. 0.1 for at most one retry per ten requests
+ */
+public record RetryConfig(int maxAttempts, Duration baseDelay, Duration maxDelay, double jitter, double budgetRatio) {
+
+    public static final int BUDGET_CAPACITY = 10;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(5);
+    public static final double DEFAULT_JITTER = 1.0;
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+    public RetryConfig {
+        Objects.requireNonNull(baseDelay, "baseDelay");
+        Objects.requireNonNull(maxDelay, "maxDelay");
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("delays must not be negative and maxDelay not below baseDelay");
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        if (budgetRatio < 0) {
+            throw new IllegalArgumentException("budgetRatio must not be negative");
+        }
+    }
+
+    /**
+     * Returns the default settings: three attempts, 100 ms doubling up to 5 s with full jitter, and at most
+     * one retry per ten requests once the initial budget is spent.
+     *
+     * @return the default retry settings
+     */
+    public static RetryConfig defaults() {
+        return new RetryConfig(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_JITTER,
+                DEFAULT_BUDGET_RATIO);
+    }
+
+    /**
+     * Returns settings that send every request exactly once.
+     *
+     * @return settings without retries
+     */
+    public static RetryConfig disabled() {
+        return new RetryConfig(1, Duration.ZERO, Duration.ZERO, 0, 0);
+    }
+}
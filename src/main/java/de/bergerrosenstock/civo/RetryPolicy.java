@@ -0,0 +1,133 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.InvalidResponseException;
+import io.minio.errors.MinioException;
+import io.minio.errors.ServerException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs requests with retries as configured by {@link RetryConfig}, sharing one retry budget between all
+ * requests of a storage instance.
+ * <p>
+ * Server errors (5xx), throttling responses, request timeouts, connection failures and unparseable responses
+ * are retried; client errors such as {@code NoSuchKey} or {@code AccessDenied}, a {@code 304 Not Modified},
+ * signing failures and requests rejected by a client-side limit are thrown immediately.
+ */
+final class RetryPolicy {
+    private static final Set<String> RETRYABLE_CODES = Set.of(
+            "SlowDown", "ServiceUnavailable", "InternalError", "RequestTimeout", "Throttling",
+            "ThrottlingException", "RequestLimitExceeded", "TooManyRequests", "XMinioServerNotInitialized");
+
+    /**
+     * A request that may be sent again.
+     */
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws MinioException, IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Prepares the request body for another attempt, e.g. by resetting a marked stream.
+     */
+    @FunctionalInterface
+    interface Rewind {
+        void rewind() throws IOException;
+    }
+
+    private final RetryConfig config;
+    private double budget = RetryConfig.BUDGET_CAPACITY;
+
+    RetryPolicy(RetryConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Sends the request, retrying transient failures.
+     */
+    <T> T execute(Call<T> call) throws MinioException, IOException, GeneralSecurityException {
+        return execute(call, () -> {
+        });
+    }
+
+    /**
+     * Sends the request, retrying transient failures after rewinding the request body.
+     *
+     * @param rewind prepares the body for the next attempt, or null if the body cannot be sent again
+     */
+    <T> T execute(Call<T> call, Rewind rewind) throws MinioException, IOException, GeneralSecurityException {
+        deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (MinioException | IOException | GeneralSecurityException e) {
+                if (rewind == null || attempt >= config.maxAttempts() || !isRetryable(e) || !withdraw()) {
+                    throw e;
+                }
+                if (!sleep(delay(attempt))) {
+                    throw e;
+                }
+                rewind.rewind();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the failure is transient, so that the same request may succeed when sent again.
+     */
+    static boolean isRetryable(Exception e) {
+        if (e instanceof ErrorResponseException ere) {
+            int status = ere.response() != null ? ere.response().code() : 0;
+            return status >= 500 || status == 429 || RETRYABLE_CODES.contains(ere.errorResponse().code());
+        }
+        if (e instanceof ServerException se) {
+            return se.statusCode() >= 500 || se.statusCode() == 429;
+        }
+        if (e instanceof RequestRejectedException) {
+            return false;
+        }
+        if (e instanceof InterruptedIOException) {
+            return e instanceof SocketTimeoutException;
+        }
+        return e instanceof IOException || e instanceof InvalidResponseException;
+    }
+
+    Duration delay(int attempt) {
+        double backoff = config.baseDelay().toNanos() * Math.pow(2, attempt - 1);
+        long capped = (long) Math.min(config.maxDelay().toNanos(), backoff);
+        long jitter = (long) (capped * config.jitter() * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofNanos(capped - jitter);
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(RetryConfig.BUDGET_CAPACITY, budget + config.budgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * Sleeps for the delay, or returns false and keeps the interrupt flag if the thread is interrupted.
+     */
+    private static boolean sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.bergerrosenstock.civo;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Deduplicates concurrent calls for the same key: while a call for a key is in flight, further callers wait for
+ * it and receive its result or exception instead of starting their own request.
+ * <p>
+ * The first caller runs the call on its own thread. Waiting callers receive the result passed through the
+ * {@code share} function, e.g. a defensive copy of mutable data. The first caller receives a shared result as
+ * well, so the instance the others copy from is never handed to a caller that could change it.
+ */
+final class SingleFlight<T> {
+
+    /**
+     * A blocking call whose result can be shared.
+     */
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws CivoObjectStorageException;
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<T> share;
+
+    SingleFlight(UnaryOperator<T> share) {
+        this.share = share;
+    }
+
+    /**
+     * Runs the call, or waits for the call already in flight for the key and shares its outcome. Waiting can be
+     * interrupted. If the running call fails because its own thread was interrupted, the interrupt stays with
+     * that caller, and the waiting callers start over instead of receiving its failure.
+     */
+    T execute(String key, Call<T> call) throws CivoObjectStorageException {
+        while (true) {
+            CompletableFuture<T> flight = new CompletableFuture<>();
+            CompletableFuture<T> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                return lead(key, flight, call);
+            }
+            try {
+                return share.apply(running.get());
+            } catch (CancellationException e) {
+                // the leader was interrupted; join or start the next call
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CivoObjectStorageException(
+                        String.format("Interrupted while waiting for the request for key %s", key), e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CivoObjectStorageException cose) throw cose;
+                if (cause instanceof RuntimeException re) throw re;
+                if (cause instanceof Error err) throw err;
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Detaches the call in flight for the key, so that later callers start a new one, e.g. after the object
+     * was written. Callers already waiting still receive the detached call's outcome.
+     */
+    void forget(String key) {
+        inFlight.remove(key);
+    }
+
+    private T lead(String key, CompletableFuture<T> flight, Call<T> call) throws CivoObjectStorageException {
+        try {
+            T result = call.call();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return share.apply(result);
+        } catch (Throwable e) {
+            inFlight.remove(key, flight);
+            if (Thread.currentThread().isInterrupted()) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Least-recently-used cache of object metadata, bounded by the number of keys.
+ * <p>
+ * Besides the metadata of existing objects it caches the {@code NoSuchKey} response of missing objects, each
+ * with its own TTL. Invalidation is tracked per key as in {@link ObjectCache}.
+ */
+final class StatCache {
+    /**
+     * A cached lookup result: either the metadata of an existing object or the error of a missing one.
+     */
+    record Entry(StatObjectResponse stat, ErrorResponseException missing, long expiresAt) {
+        boolean exists() {
+            return stat != null;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Invalidations invalidations = new Invalidations();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    StatCache(StatCacheConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    StatCache(StatCacheConfig config, LongSupplier nanoClock) {
+        this.positiveTtlNanos = config.positiveTtl().toNanos();
+        this.negativeTtlNanos = config.negativeTtl().toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > config.maxEntries()) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized long generation() {
+        return invalidations.ticket();
+    }
+
+    /**
+     * Returns the cached lookup result, or null if the key is not cached or expired.
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - nanoClock.getAsLong() <= 0) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    synchronized void putFound(String key, StatObjectResponse stat, long generation) {
+        if (invalidations.isCurrent(key, generation)) {
+            entries.put(key, new Entry(stat, null, nanoClock.getAsLong() + positiveTtlNanos));
+        }
+    }
+
+    synchronized void putMissing(String key, ErrorResponseException missing, long generation) {
+        if (invalidations.isCurrent(key, generation)) {
+            entries.put(key, new Entry(null, missing, nanoClock.getAsLong() + negativeTtlNanos));
+        }
+    }
+
+    /**
+     * Removes the key from the cache and prevents lookups that are in flight from caching it.
+     */
+    synchronized void invalidate(String key) {
+        invalidations.invalidate(key);
+        entries.remove(key);
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, 0, entries.size(), 0);
+    }
+}
@@ -0,0 +1,26 @@
+package de.bergerrosenstock.civo;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the object metadata cache used by {@link CivoObjectStorage#statObject(String)} and
+ * {@link CivoObjectStorage#objectExists(String)}.
+ *
+ * @param maxEntries  the maximum number of cached keys
+ * @param positiveTtl how long the metadata of an existing object is cached
+ * @param negativeTtl how long the absence of an object is cached
+ */
+public record StatCacheConfig(int maxEntries, Duration positiveTtl, Duration negativeTtl) {
+
+    public StatCacheConfig {
+        Objects.requireNonNull(positiveTtl, "positiveTtl");
+        Objects.requireNonNull(negativeTtl, "negativeTtl");
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        if (positiveTtl.isNegative() || negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * Receives the duration, transferred bytes and outcome of every {@link StorageOperation}, registered with
+ * {@link CivoObjectStorage.Builder#metrics(StorageMetrics)}.
+ * <p>
+ * Implementations bridge to a metrics library, or use {@link HistogramMetrics}, which needs none. Every call
+ * of {@link #started(StorageOperation)} is followed by exactly one call of
+ * {@link #succeeded(StorageOperation, long, long, long)} or {@link #failed(StorageOperation, long, String)} on
+ * the same thread. The methods are called on the request path from many threads and must be thread-safe and
+ * fast; all of them do nothing by default.
+ */
+public interface StorageMetrics {
+
+    /**
+     * Called when an operation starts.
+     *
+     * @param operation the operation
+     */
+    default void started(StorageOperation operation) {
+    }
+
+    /**
+     * Called when an operation succeeded, including operations answered from a cache.
+     *
+     * @param operation    the operation
+     * @param latencyNanos how long the operation took
+     * @param bytesIn      the number of object bytes returned, e.g. the data of a retrieved object
+     * @param bytesOut     the number of object bytes stored; 0 for streams of unknown size
+     */
+    default void succeeded(StorageOperation operation, long latencyNanos, long bytesIn, long bytesOut) {
+    }
+
+    /**
+     * Called when an operation failed.
+     *
+     * @param operation    the operation
+     * @param latencyNanos how long the operation took until it failed
+     * @param errorCode    the S3 error code, e.g. {@code NoSuchKey} or {@code SlowDown}, or the simple class name
+     *                     of the failure if the object storage did not answer with an error response
+     */
+    default void failed(StorageOperation operation, long latencyNanos, String errorCode) {
+    }
+}
@@ -0,0 +1,31 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * The public operations of {@link CivoObjectStorage} that are reported to {@link StorageMetrics}.
+ */
+public enum StorageOperation {
+    /**
+     * {@link CivoObjectStorage#putBytes(String, byte[], String, java.util.Map)}.
+     */
+    PUT_BYTES,
+    /**
+     * {@link CivoObjectStorage#putStream(String, java.io.InputStream, long, String)}.
+     */
+    PUT_STREAM,
+    /**
+     * {@link CivoObjectStorage#getObject(String)}.
+     */
+    GET_OBJECT,
+    /**
+     * {@link CivoObjectStorage#statObject(String)}.
+     */
+    STAT_OBJECT,
+    /**
+     * {@link CivoObjectStorage#deleteObject(String)}.
+     */
+    DELETE_OBJECT,
+    /**
+     * {@link CivoObjectStorage#getPresignedUrl(String, int, java.util.concurrent.TimeUnit)}.
+     */
+    GET_PRESIGNED_URL
+}
@@ -0,0 +1,104 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.StatObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Map;
+
+/**
+ * An object whose data is read incrementally from the open GET response, or from the disk cache,
+ * instead of being held in memory.
+ * <p>
+ * The handle owns the underlying HTTP connection or file and must be closed, preferably with try-with-resources.
+ * {@link #inputStream()} and {@link #channel()} read from the same response body and must not be mixed.
+ */
+public final class StoredObjectStream implements AutoCloseable {
+    private final InputStream in;
+    private final String contentType;
+    private final Map<String, String> userMetadata;
+    private final String etag;
+    private final long size;
+    private ReadableByteChannel channel;
+
+    StoredObjectStream(InputStream in, StatObjectResponse stat) {
+        this(in, stat.contentType(), stat.userMetadata(), stat.etag(), stat.size());
+    }
+
+    StoredObjectStream(InputStream in, String contentType, Map<String, String> userMetadata, String etag, long size) {
+        this.in = in;
+        this.contentType = contentType;
+        this.userMetadata = userMetadata;
+        this.etag = etag;
+        this.size = size;
+    }
+
+    /**
+     * Returns the object data as input stream.
+     *
+     * @return the input stream of the object data
+     */
+    public InputStream inputStream() {
+        return in;
+    }
+
+    /**
+     * Returns the object data as channel, e.g. for transfers into a {@link java.nio.channels.FileChannel}.
+     *
+     * @return the channel reading the object data
+     */
+    public synchronized ReadableByteChannel channel() {
+        if (channel == null) {
+            channel = Channels.newChannel(in);
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the MIME type of the object.
+     *
+     * @return the content type
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the user-defined metadata of the object.
+     *
+     * @return the user metadata
+     */
+    public Map<String, String> userMetadata() {
+        return userMetadata;
+    }
+
+    /**
+     * Returns the ETag of the object.
+     *
+     * @return the ETag
+     */
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * Returns the size of the object data in bytes.
+     *
+     * @return the size, or -1 if the response carries no content length
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Closes the response body or file and releases the connection.
+     *
+     * @throws IOException if closing the stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
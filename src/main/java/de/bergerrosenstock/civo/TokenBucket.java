@@ -0,0 +1,51 @@
+package de.bergerrosenstock.civo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled at a constant rate, holding at most one second's worth of tokens.
+ * <p>
+ * Tokens are reserved ahead: a caller that takes more tokens than available drives the balance negative and
+ * waits for the time the refill needs to cover it, so later callers queue up behind it. A full bucket admits
+ * any amount at once, so that single requests larger than the burst size are not rejected forever.
+ */
+final class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double tokensPerSecond, LongSupplier nanoClock) {
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.capacity = tokensPerSecond;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Returns how long a caller would have to wait for the tokens, without reserving them.
+     */
+    synchronized long waitNanos(double amount) {
+        refill();
+        if (tokens >= amount || tokens >= capacity) {
+            return 0;
+        }
+        return (long) Math.ceil((amount - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Takes the tokens, driving the balance negative if needed.
+     */
+    synchronized void take(double amount) {
+        refill();
+        tokens -= amount;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,16 @@
+package de.bergerrosenstock.civo;
+
+/**
+ * Wraps a {@link CivoObjectStorageException} where a checked exception cannot be thrown, such as while
+ * iterating a lazily loaded {@link java.util.stream.Stream}.
+ */
+public class UncheckedCivoObjectStorageException extends RuntimeException {
+    public UncheckedCivoObjectStorageException(CivoObjectStorageException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized CivoObjectStorageException getCause() {
+        return (CivoObjectStorageException) super.getCause();
+    }
+}
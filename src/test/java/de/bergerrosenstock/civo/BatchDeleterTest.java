@@ -0,0 +1,158 @@
+package de.bergerrosenstock.civo;
+
+import de.bergerrosenstock.civo.CivoObjectStorage.StoredObject;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BatchDeleterTest {
+
+    private static final int KEYS = 2 * BatchDeleter.MAX_BATCH_SIZE + 500;
+
+    /**
+     * Client that answers the first batch without errors, reports per-key errors for two keys of the second
+     * batch and fails the request of the third batch. It records the size of every batch and how many keys the
+     * source had produced when the first request was sent.
+     */
+    private static final class StubClient extends MinioClient {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicInteger producedAtFirstRequest = new AtomicInteger(-1);
+        final AtomicInteger produced;
+
+        StubClient(AtomicInteger produced) {
+            super(MinioClient.builder()
+                    .endpoint("http://localhost:9000")
+                    .credentials("access", "secret")
+                    .build());
+            this.produced = produced;
+        }
+
+        @Override
+        public Iterable<Result<DeleteError>> removeObjects(RemoveObjectsArgs args) {
+            producedAtFirstRequest.compareAndSet(-1, produced.get());
+            int size = 0;
+            for (DeleteObject ignored : args.objects()) {
+                size++;
+            }
+            batchSizes.add(size);
+            return switch (batchSizes.size()) {
+                case 1 -> List.of();
+                case 2 -> List.of(new Result<>(error("key-1000")), new Result<>(error("key-1500")));
+                default -> List.of(new Result<>(new IOException("Connection reset")));
+            };
+        }
+    }
+
+    private static DeleteError error(String key) {
+        return new DeleteError() {
+            @Override
+            public String objectName() {
+                return key;
+            }
+
+            @Override
+            public String code() {
+                return "AccessDenied";
+            }
+
+            @Override
+            public String message() {
+                return "Access Denied.";
+            }
+        };
+    }
+
+    private static Iterable<String> keys(AtomicInteger produced) {
+        return () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return produced.get() < KEYS;
+            }
+
+            @Override
+            public String next() {
+                return "key-" + produced.getAndIncrement();
+            }
+        };
+    }
+
+    private static BatchDeleter deleter(StubClient client) {
+        return new BatchDeleter(client, "bucket",
+                new RequestExecutor(new RetryPolicy(RetryConfig.disabled()), null, null, null));
+    }
+
+    @Test
+    public void takesBatchesFromTheSourceOnlyWhenTheyAreSent() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        StubClient client = new StubClient(produced);
+        deleter(client).delete(keys(produced), 1, batch -> { });
+
+        assertEquals(List.of(1000, 1000, 500), client.batchSizes);
+        assertEquals(BatchDeleter.MAX_BATCH_SIZE, client.producedAtFirstRequest.get());
+    }
+
+    @Test
+    public void reportsPerKeyErrorsAndFailedBatches() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        List<DeleteFailure> failures = deleter(new StubClient(produced)).delete(keys(produced), 1, batch -> { });
+
+        List<DeleteFailure> perKey = new ArrayList<>();
+        List<DeleteFailure> failedBatch = new ArrayList<>();
+        for (DeleteFailure failure : failures) {
+            (failure.code().equals("AccessDenied") ? perKey : failedBatch).add(failure);
+        }
+        assertEquals(List.of(new DeleteFailure("key-1000", "AccessDenied", "Access Denied."),
+                new DeleteFailure("key-1500", "AccessDenied", "Access Denied.")), perKey);
+        assertEquals(500, failedBatch.size());
+        for (DeleteFailure failure : failedBatch) {
+            assertEquals("IOException", failure.code());
+            assertEquals("Connection reset", failure.message());
+            assertEquals(2, Integer.parseInt(failure.key().substring("key-".length())) / 1000);
+        }
+    }
+
+    @Test
+    public void invalidatesTheCachedEntriesOfEveryBatch() throws Exception {
+        ObjectCache cache = new ObjectCache(new ObjectCacheConfig(1000, Duration.ofSeconds(10)));
+        StatCache statCache = new StatCache(new StatCacheConfig(10, Duration.ofSeconds(60), Duration.ofSeconds(5)));
+        List<String> keys = List.of("key-0", "key-1000", "key-2000", "other");
+        for (String key : keys) {
+            cache.put(key, new StoredObject(new byte[1], "text/plain", Map.of()), cache.generation());
+            statCache.putMissing(key, null, statCache.generation());
+        }
+
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger invalidated = new AtomicInteger();
+        deleter(new StubClient(produced)).delete(keys(produced), 2, batch -> {
+            invalidated.addAndGet(batch.size());
+            batch.forEach(key -> {
+                cache.invalidate(key);
+                statCache.invalidate(key);
+            });
+        });
+
+        assertEquals(KEYS, invalidated.get());
+        for (String key : keys.subList(0, 3)) {
+            assertNull(cache.get(key));
+            assertNull(statCache.get(key));
+        }
+        assertNotNull(cache.get("other"));
+        assertNotNull(statCache.get("other"));
+    }
+}
@@ -0,0 +1,54 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkExecutorTest {
+
+    @Test
+    public void limitsConcurrentOperations() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        try (BulkExecutor bulk = new BulkExecutor(null, 4)) {
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                results.add(bulk.submit(storage -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return n;
+                }));
+            }
+        }
+        assertTrue(peak.get() <= 4);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), results.get(i).get());
+        }
+    }
+
+    @Test
+    public void completesExceptionallyWithOperationFailure() {
+        CompletableFuture<Object> result;
+        try (BulkExecutor bulk = new BulkExecutor(null, 1)) {
+            result = bulk.submit(storage -> {
+                throw new CivoObjectStorageException("failed");
+            });
+        }
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertEquals(CivoObjectStorageException.class, e.getCause().getClass());
+    }
+}
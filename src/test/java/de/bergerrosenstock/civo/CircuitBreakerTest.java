@@ -0,0 +1,104 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<CircuitBreakerEvent> events = new ArrayList<>();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(new CircuitBreakerConfig(0.5, 4, 4, Duration.ofSeconds(10), 2),
+                events::add, clock::get);
+    }
+
+    private static void fail(CircuitBreaker breaker, int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            breaker.record(breaker.acquire(), true);
+        }
+    }
+
+    private static void succeed(CircuitBreaker breaker, int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            breaker.record(breaker.acquire(), false);
+        }
+    }
+
+    @Test
+    public void opensOnceTheFailureRateIsReachedOverTheMinimumRequests() throws Exception {
+        CircuitBreaker breaker = breaker();
+        fail(breaker, 3);
+        assertEquals(CircuitState.CLOSED, breaker.stats().state());
+
+        succeed(breaker, 1);
+        assertEquals(CircuitState.OPEN, breaker.stats().state());
+        assertThrows(RequestRejectedException.class, breaker::acquire);
+        assertEquals(new CircuitBreakerStats(CircuitState.OPEN, 0.75, 1, 1), breaker.stats());
+        assertEquals(CircuitState.CLOSED, events.get(0).from());
+        assertEquals(CircuitState.OPEN, events.get(0).to());
+    }
+
+    @Test
+    public void staysClosedWhileTheWindowSlidesOverOldFailures() throws Exception {
+        CircuitBreaker breaker = breaker();
+        fail(breaker, 1);
+        succeed(breaker, 3);
+        succeed(breaker, 1);
+        fail(breaker, 1);
+        assertEquals(CircuitState.CLOSED, breaker.stats().state());
+        assertEquals(0.25, breaker.stats().failureRate());
+    }
+
+    @Test
+    public void closesAfterSuccessfulTrialRequests() throws Exception {
+        CircuitBreaker breaker = breaker();
+        fail(breaker, 4);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        long first = breaker.acquire();
+        long second = breaker.acquire();
+        assertEquals(CircuitState.HALF_OPEN, breaker.stats().state());
+        assertThrows(RequestRejectedException.class, breaker::acquire);
+
+        breaker.record(first, false);
+        breaker.record(second, false);
+        assertEquals(new CircuitBreakerStats(CircuitState.CLOSED, 0, 1, 1), breaker.stats());
+        assertEquals(List.of(CircuitState.OPEN, CircuitState.HALF_OPEN, CircuitState.CLOSED),
+                events.stream().map(CircuitBreakerEvent::to).toList());
+    }
+
+    @Test
+    public void reopensOnAFailedTrialRequest() throws Exception {
+        CircuitBreaker breaker = breaker();
+        fail(breaker, 4);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        fail(breaker, 1);
+        assertEquals(CircuitState.OPEN, breaker.stats().state());
+        assertEquals(2, breaker.stats().opened());
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThrows(RequestRejectedException.class, breaker::acquire);
+    }
+
+    @Test
+    public void ignoresOutcomesOfRequestsStartedBeforeATransition() throws Exception {
+        CircuitBreaker breaker = breaker();
+        long slow = breaker.acquire();
+        fail(breaker, 4);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        long trial = breaker.acquire();
+
+        breaker.record(slow, false);
+        breaker.cancel(trial);
+        succeed(breaker, 2);
+        assertEquals(CircuitState.CLOSED, breaker.stats().state());
+    }
+}
@@ -0,0 +1,26 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CivoObjectStorageTest {
+
+    @Test
+    public void defaultsTheRegionForVariantsOfTheFra1Endpoint() {
+        for (String endpoint : new String[]{CivoObjectStorage.ENDPOINT_FRA_1, "https://objectstore.fra1.civo.com/",
+                "http://objectstore.fra1.civo.com", "HTTPS://ObjectStore.FRA1.civo.com", "objectstore.fra1.civo.com",
+                "https://objectstore.fra1.civo.com:443/", " https://objectstore.fra1.civo.com "}) {
+            assertEquals(CivoObjectStorage.REGION_FRA_1, CivoObjectStorage.defaultRegion(endpoint));
+        }
+    }
+
+    @Test
+    public void leavesTheRegionOfOtherEndpointsToTheClient() {
+        assertNull(CivoObjectStorage.defaultRegion("https://objectstore.lon1.civo.com"));
+        assertNull(CivoObjectStorage.defaultRegion("https://objectstore.fra1.civo.com.example.org"));
+        assertNull(CivoObjectStorage.defaultRegion("http://localhost:9000"));
+        assertNull(CivoObjectStorage.defaultRegion(null));
+    }
+}
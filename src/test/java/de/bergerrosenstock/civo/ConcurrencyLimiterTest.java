@@ -0,0 +1,108 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private ConcurrencyLimiter limiter(int initialLimit, Duration maxWait) {
+        return new ConcurrencyLimiter(
+                new ConcurrencyLimitConfig(initialLimit, 2, 100, Duration.ofSeconds(1), 0.5, maxWait), clock::get);
+    }
+
+    private void complete(ConcurrencyLimiter limiter, long latency, boolean overloaded) throws Exception {
+        long start = limiter.acquire();
+        clock.addAndGet(latency);
+        limiter.release(start, overloaded);
+    }
+
+    @Test
+    public void rejectsRequestsBeyondTheLimitWithoutWaiting() throws Exception {
+        ConcurrencyLimiter limiter = limiter(2, Duration.ZERO);
+        long start = limiter.acquire();
+        limiter.acquire();
+        assertThrows(RequestRejectedException.class, limiter::acquire);
+
+        limiter.release(start, false);
+        limiter.acquire();
+        assertEquals(new ConcurrencyLimitStats(2, 2, 1), limiter.stats());
+    }
+
+    @Test
+    public void tryAcquireTakesOnlyFreeSlots() throws Exception {
+        ConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(5));
+        long start = limiter.acquire();
+        assertNotNull(limiter.tryAcquire());
+        assertNull(limiter.tryAcquire());
+
+        limiter.release(start, false);
+        assertNotNull(limiter.tryAcquire());
+        assertEquals(new ConcurrencyLimitStats(2, 2, 0), limiter.stats());
+    }
+
+    @Test
+    public void halvesOnOverloadAndGrowsWhenSaturated() throws Exception {
+        ConcurrencyLimiter limiter = limiter(10, Duration.ZERO);
+        complete(limiter, SLOW, false);
+        assertEquals(5, limiter.stats().limit());
+        complete(limiter, FAST, true);
+        assertEquals(2, limiter.stats().limit());
+
+        for (int i = 0; i < 50; i++) {
+            long first = limiter.acquire();
+            long second = limiter.acquire();
+            clock.addAndGet(FAST);
+            limiter.release(first, false);
+            limiter.release(second, false);
+        }
+        assertTrue(limiter.stats().limit() > 2);
+    }
+
+    @Test
+    public void decreasesOncePerRoundOfConcurrentRequests() throws Exception {
+        ConcurrencyLimiter limiter = limiter(16, Duration.ZERO);
+        long[] starts = new long[8];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = limiter.acquire();
+        }
+        clock.addAndGet(SLOW);
+        for (long start : starts) {
+            limiter.release(start, true);
+        }
+        assertEquals(8, limiter.stats().limit());
+
+        complete(limiter, SLOW, false);
+        assertEquals(4, limiter.stats().limit());
+    }
+
+    @Test
+    public void waitingRequestGetsReleasedSlot() throws Exception {
+        ConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(5));
+        long start = limiter.acquire();
+        limiter.acquire();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        limiter.release(start, false);
+        waiter.join(5000);
+        assertEquals(2, limiter.stats().inFlight());
+    }
+}
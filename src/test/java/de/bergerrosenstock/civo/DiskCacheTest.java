@@ -0,0 +1,126 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("disk-cache-test");
+    }
+
+    private DiskCache open(long maxBytes) throws Exception {
+        return open("endpoint/bucket", maxBytes);
+    }
+
+    private DiskCache open(String namespace, long maxBytes) throws Exception {
+        return new DiskCache(new DiskCacheConfig(directory, maxBytes, Duration.ofSeconds(10)), namespace, clock::get);
+    }
+
+    private static DiskCache.Entry put(DiskCache cache, String key, byte[] data) throws Exception {
+        return cache.put(key, new ByteArrayInputStream(data), "etag-" + key, "text/plain", Map.of("name", key),
+                cache.generation());
+    }
+
+    @Test
+    public void reopensWithPersistedEntries() throws Exception {
+        put(open(100), "a", "hello".getBytes());
+
+        DiskCache reopened = open(100);
+        DiskCache.Entry entry = reopened.get("a");
+        assertNotNull(entry);
+        assertTrue(reopened.isFresh(entry));
+        assertEquals("etag-a", entry.etag());
+        assertEquals(Map.of("name", "a"), entry.userMetadata());
+        assertArrayEquals("hello".getBytes(), reopened.read(entry));
+    }
+
+    @Test
+    public void sharesFilesOfIdenticalContent() throws Exception {
+        DiskCache cache = open(100);
+        put(cache, "a", new byte[10]);
+        put(cache, "b", new byte[10]);
+        assertEquals(10, cache.stats().bytes());
+
+        cache.invalidate("a");
+        assertArrayEquals(new byte[10], cache.read(cache.get("b")));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedToStayWithinBytes() throws Exception {
+        DiskCache cache = open(20);
+        put(cache, "a", new byte[]{1});
+        put(cache, "b", new byte[]{2});
+        cache.get("a");
+        put(cache, "c", new byte[19]);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void expiresAndRefreshesEntries() throws Exception {
+        DiskCache cache = open(100);
+        DiskCache.Entry entry = put(cache, "a", new byte[1]);
+        clock.addAndGet(Duration.ofSeconds(10).toMillis());
+        assertFalse(cache.isFresh(entry));
+
+        cache.refresh(entry, cache.generation());
+        assertTrue(cache.isFresh(open(100).get("a")));
+    }
+
+    @Test
+    public void separatesBucketsSharingTheDirectory() throws Exception {
+        put(open("endpoint/one", 100), "a", "one".getBytes());
+        put(open("endpoint/two", 100), "a", "two".getBytes());
+
+        DiskCache one = open("endpoint/one", 100);
+        assertArrayEquals("one".getBytes(), one.read(one.get("a")));
+        assertNull(open("endpoint/three", 100).get("a"));
+    }
+
+    @Test
+    public void keepsFillsThatRacedWithAnInvalidationOfAnotherKey() throws Exception {
+        DiskCache cache = open(100);
+        long generation = cache.generation();
+        cache.invalidate("b");
+        assertNotNull(cache.put("a", new ByteArrayInputStream(new byte[1]), null, null, null, generation));
+
+        cache.invalidate("a");
+        assertNull(cache.put("a", new ByteArrayInputStream(new byte[1]), null, null, null, generation));
+    }
+
+    @Test
+    public void removesOrphanedObjectFilesOnStartup() throws Exception {
+        DiskCache cache = open(100);
+        DiskCache.Entry entry = put(cache, "a", new byte[1]);
+        Path namespace;
+        try (var directories = Files.list(directory)) {
+            namespace = directories.findFirst().orElseThrow();
+        }
+        Path object = namespace.resolve("objects").resolve(entry.hash());
+        Files.delete(namespace.resolve("index").toFile().listFiles()[0].toPath());
+
+        open(100);
+        assertFalse(Files.exists(object));
+    }
+}
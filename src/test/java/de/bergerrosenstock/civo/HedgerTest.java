@@ -0,0 +1,124 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final Hedger hedger = new Hedger(new HedgeConfig(0.9, Duration.ZERO, Duration.ofMillis(20)),
+            (task, delayNanos) -> {
+                scheduled.add(task);
+                delays.add(delayNanos);
+            }, clock::get);
+    private final List<CompletableFuture<String>> attempts = new ArrayList<>();
+    private final List<String> discarded = new ArrayList<>();
+
+    private CompletableFuture<String> attempt() {
+        CompletableFuture<String> attempt = new CompletableFuture<>();
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    private CompletableFuture<String> send() {
+        return hedger.send(this::attempt, this::attempt, discarded::add);
+    }
+
+    private void elapse() {
+        scheduled.remove(0).run();
+    }
+
+    @Test
+    public void doesNotHedgeFastResponses() throws Exception {
+        CompletableFuture<String> result = send();
+        attempts.get(0).complete("first");
+        assertEquals("first", result.get());
+        elapse();
+        assertEquals(1, attempts.size());
+        assertEquals(new HedgeStats(1, 0, 0), hedger.stats());
+    }
+
+    @Test
+    public void secondRequestWinsAndLoserIsDiscarded() throws Exception {
+        CompletableFuture<String> result = send();
+        assertEquals(Long.valueOf(Duration.ofMillis(20).toNanos()), delays.get(0));
+        elapse();
+        attempts.get(1).complete("second");
+        assertEquals("second", result.getNow(null));
+        attempts.get(0).complete("first");
+        assertEquals(List.of("first"), discarded);
+        assertEquals(new HedgeStats(1, 1, 1), hedger.stats());
+    }
+
+    @Test
+    public void failsOnlyWhenAllAttemptsFailed() throws Exception {
+        CompletableFuture<String> result = send();
+        elapse();
+        attempts.get(0).completeExceptionally(new IOException("reset"));
+        assertTrue(!result.isDone());
+        attempts.get(1).complete("second");
+        assertEquals("second", result.getNow(null));
+
+        CompletableFuture<String> failed = send();
+        attempts.get(2).completeExceptionally(new IOException("reset"));
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertEquals(IOException.class, e.getCause().getClass());
+    }
+
+    @Test
+    public void waitsForTheFirstAttemptWhenTheHedgeIsSkipped() throws Exception {
+        CompletableFuture<String> result = hedger.send(this::attempt, () -> null, discarded::add);
+        elapse();
+        assertEquals(1, attempts.size());
+        assertTrue(!result.isDone());
+
+        attempts.get(0).completeExceptionally(new IOException("reset"));
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertEquals(IOException.class, e.getCause().getClass());
+        assertEquals(new HedgeStats(1, 0, 0), hedger.stats());
+    }
+
+    @Test
+    public void failsWhenTheFirstAttemptFailedBeforeTheHedgeWasSkipped() {
+        CompletableFuture<String> result = hedger.send(this::attempt, () -> {
+            attempts.get(0).completeExceptionally(new IOException("reset"));
+            return null;
+        }, discarded::add);
+        elapse();
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void delaysHedgesByThePercentileOfRecentLatencies() {
+        for (int i = 1; i <= 20; i++) {
+            CompletableFuture<String> result = send();
+            clock.addAndGet(Duration.ofMillis(i).toNanos());
+            attempts.get(attempts.size() - 1).complete("done");
+            assertEquals("done", result.getNow(null));
+        }
+        assertEquals(Duration.ofMillis(18).toNanos(), hedger.delayNanos());
+    }
+
+    @Test
+    public void computesPercentileOfWindow() {
+        LatencyWindow window = new LatencyWindow(100, 0.9);
+        for (int i = 1; i <= 200; i++) {
+            window.add(i);
+        }
+        assertEquals(100, window.count());
+        assertEquals(190, window.percentile());
+    }
+}
@@ -0,0 +1,37 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HistogramMetricsTest {
+
+    @Test
+    public void countsRequestsBytesAndErrorsPerOperation() {
+        HistogramMetrics metrics = new HistogramMetrics();
+        metrics.started(StorageOperation.GET_OBJECT);
+        metrics.succeeded(StorageOperation.GET_OBJECT, Duration.ofMillis(20).toNanos(), 1000, 0);
+        metrics.started(StorageOperation.GET_OBJECT);
+        metrics.failed(StorageOperation.GET_OBJECT, Duration.ofMillis(5).toNanos(), "NoSuchKey");
+        metrics.started(StorageOperation.GET_OBJECT);
+        metrics.started(StorageOperation.PUT_BYTES);
+        metrics.succeeded(StorageOperation.PUT_BYTES, Duration.ofMillis(40).toNanos(), 0, 300);
+
+        OperationStats get = metrics.stats(StorageOperation.GET_OBJECT);
+        assertEquals(2, get.requests());
+        assertEquals(1, get.failures());
+        assertEquals(1, get.inFlight());
+        assertEquals(1000, get.bytesIn());
+        assertEquals(Map.of("NoSuchKey", 1L), get.errorsByCode());
+        assertEquals(Duration.ofMillis(20), get.max());
+        assertEquals(0.5, get.errorRate(), 0);
+
+        OperationStats put = metrics.stats(StorageOperation.PUT_BYTES);
+        assertEquals(300, put.bytesOut());
+        assertEquals(0, put.inFlight());
+        assertEquals(0, metrics.stats().get(StorageOperation.DELETE_OBJECT).requests());
+    }
+}
@@ -0,0 +1,35 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvalidationsTest {
+
+    @Test
+    public void rejectsOnlyFillsOfKeysInvalidatedAfterTheTicket() {
+        Invalidations invalidations = new Invalidations(10);
+        invalidations.invalidate("a");
+        long ticket = invalidations.ticket();
+        invalidations.invalidate("b");
+
+        assertTrue(invalidations.isCurrent("a", ticket));
+        assertFalse(invalidations.isCurrent("b", ticket));
+        assertTrue(invalidations.isCurrent("c", ticket));
+        assertTrue(invalidations.isCurrent("b", invalidations.ticket()));
+    }
+
+    @Test
+    public void rejectsOldFillsOnceInvalidationsAreForgotten() {
+        Invalidations invalidations = new Invalidations(2);
+        long ticket = invalidations.ticket();
+        invalidations.invalidate("a");
+        invalidations.invalidate("b");
+        invalidations.invalidate("c");
+
+        assertFalse(invalidations.isCurrent("a", ticket));
+        assertFalse(invalidations.isCurrent("d", ticket));
+        assertTrue(invalidations.isCurrent("d", invalidations.ticket()));
+    }
+}
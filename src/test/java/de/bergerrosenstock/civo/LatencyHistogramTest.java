@@ -0,0 +1,49 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndNarrow() {
+        for (int index = 1; index < LatencyHistogram.BUCKETS; index++) {
+            assertEquals(LatencyHistogram.highestEquivalent(index - 1) + 1, LatencyHistogram.lowestEquivalent(index));
+        }
+        for (long value : new long[]{0, 1, 127, 128, 255, 256, 1_000_000, 123_456_789, LatencyHistogram.MAX_TRACKABLE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.lowestEquivalent(index) <= value);
+            assertTrue(LatencyHistogram.highestEquivalent(index) >= value);
+            assertTrue(LatencyHistogram.highestEquivalent(index) - LatencyHistogram.lowestEquivalent(index)
+                    <= Math.max(0, value / LatencyHistogram.HALF));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(LatencyHistogram.MAX_TRACKABLE));
+    }
+
+    @Test
+    public void reportsQuantilesWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(Duration.ofMillis(millis).toNanos());
+        }
+        long[] quantiles = histogram.quantiles(0.5, 0.99, 1.0);
+        assertEquals(500, quantiles[0] / 1_000_000.0, 500 / 64.0);
+        assertEquals(990, quantiles[1] / 1_000_000.0, 990 / 64.0);
+        assertEquals(Duration.ofSeconds(1).toNanos(), quantiles[2]);
+        assertEquals(Duration.ofSeconds(1).toNanos(), histogram.max());
+    }
+
+    @Test
+    public void clampsValuesOutsideTheTrackableRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.quantiles(0.5)[0]);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.quantiles(0.5)[0]);
+        assertEquals(LatencyHistogram.MAX_TRACKABLE, histogram.max());
+    }
+}
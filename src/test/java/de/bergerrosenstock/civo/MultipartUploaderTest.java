@@ -0,0 +1,178 @@
+package de.bergerrosenstock.civo;
+
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MultipartUploaderTest {
+
+    private static final int PART_SIZE = MultipartConfig.MIN_PART_SIZE;
+
+    /**
+     * Client that keeps the multipart requests in memory, optionally failing one part a number of times or holding
+     * back the first part until the others are uploaded.
+     */
+    private static final class StubClient extends CivoMinioAsyncClient {
+        final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        final AtomicReference<Part[]> completed = new AtomicReference<>();
+        final AtomicInteger aborted = new AtomicInteger();
+        final AtomicInteger failedAttempts = new AtomicInteger();
+        final int failingPart;
+        final int failures;
+        final CountDownLatch laterParts;
+
+        StubClient(int failingPart, int laterParts) {
+            this(failingPart, Integer.MAX_VALUE, laterParts);
+        }
+
+        StubClient(int failingPart, int failures, int laterParts) {
+            super(MinioAsyncClient.builder()
+                    .endpoint("http://localhost:9000")
+                    .credentials("access", "secret")
+                    .build());
+            this.failingPart = failingPart;
+            this.failures = failures;
+            this.laterParts = new CountDownLatch(laterParts);
+        }
+
+        @Override
+        String createUpload(String bucket, String region, String key, Multimap<String, String> headers) {
+            return "upload";
+        }
+
+        @Override
+        String uploadPart(String bucket, String region, String key, String uploadId, int partNumber, byte[] data)
+                throws IOException, InterruptedException {
+            if (partNumber == failingPart && failedAttempts.getAndIncrement() < failures) {
+                throw new IOException("Connection reset");
+            }
+            if (partNumber == 1) {
+                laterParts.await(5, TimeUnit.SECONDS);
+            } else {
+                laterParts.countDown();
+            }
+            parts.put(partNumber, data);
+            return "etag-" + partNumber;
+        }
+
+        @Override
+        ObjectWriteResponse completeUpload(String bucket, String region, String key, String uploadId,
+                                           Part[] parts) {
+            completed.set(parts);
+            return null;
+        }
+
+        @Override
+        void abortUpload(String bucket, String region, String key, String uploadId) {
+            aborted.incrementAndGet();
+        }
+    }
+
+    private static MultipartUploader uploader(StubClient client) {
+        return uploader(client, RetryConfig.disabled());
+    }
+
+    private static MultipartUploader uploader(StubClient client, RetryConfig retryConfig) {
+        return new MultipartUploader(client, "bucket", "FRA1", new MultipartConfig(PART_SIZE, 4),
+                new RequestExecutor(new RetryPolicy(retryConfig), null, null, null));
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    private static void assertCompletedInOrder(StubClient client, byte[] data) {
+        Part[] completed = client.completed.get();
+        assertEquals(3, completed.length);
+        for (int i = 0; i < completed.length; i++) {
+            assertEquals(i + 1, completed[i].partNumber());
+            assertEquals("etag-" + (i + 1), completed[i].etag());
+        }
+        byte[] last = client.parts.get(3);
+        assertEquals(1234, last.length);
+        assertArrayEquals(Arrays.copyOfRange(data, 2 * PART_SIZE, data.length), last);
+        assertEquals(0, client.aborted.get());
+    }
+
+    @Test
+    public void completesStreamPartsInPartOrderWhenTheyFinishOutOfOrder() throws Exception {
+        StubClient client = new StubClient(0, 2);
+        byte[] data = data(2 * PART_SIZE + 1234);
+        uploader(client).upload("key", new ByteArrayInputStream(data), data.length, null, null);
+        assertCompletedInOrder(client, data);
+    }
+
+    @Test
+    public void completesFilePartsInPartOrderWhenTheyFinishOutOfOrder() throws Exception {
+        StubClient client = new StubClient(0, 2);
+        byte[] data = data(2 * PART_SIZE + 1234);
+        Path file = Files.createTempFile("multipart", ".bin");
+        try {
+            Files.write(file, data);
+            uploader(client).uploadFile("key", file, null, null);
+            assertCompletedInOrder(client, data);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void abortsTheUploadWhenAStreamPartFails() {
+        StubClient client = new StubClient(2, 0);
+        byte[] data = data(3 * PART_SIZE);
+        CivoObjectStorageException e = assertThrows(CivoObjectStorageException.class,
+                () -> uploader(client).upload("key", new ByteArrayInputStream(data), -1, null, null));
+        assertEquals(IOException.class, e.getCause().getClass());
+        assertEquals(1, client.aborted.get());
+        assertNull(client.completed.get());
+        assertEquals(1, client.failedAttempts.get());
+    }
+
+    @Test
+    public void retriesAFailedPartUnderTheRetryPolicy() throws Exception {
+        StubClient client = new StubClient(3, 2, 0);
+        byte[] data = data(2 * PART_SIZE + 1234);
+        uploader(client, new RetryConfig(3, Duration.ZERO, Duration.ZERO, 0, 0.1))
+                .upload("key", new ByteArrayInputStream(data), data.length, null, null);
+        assertCompletedInOrder(client, data);
+        assertEquals(3, client.failedAttempts.get());
+    }
+
+    @Test
+    public void abortsTheUploadWhenAFilePartFails() throws Exception {
+        StubClient client = new StubClient(3, 0);
+        Path file = Files.createTempFile("multipart", ".bin");
+        try {
+            Files.write(file, data(2 * PART_SIZE + 1));
+            assertThrows(CivoObjectStorageException.class, () -> uploader(client).uploadFile("key", file, null, null));
+            assertEquals(1, client.aborted.get());
+            assertNull(client.completed.get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.bergerrosenstock.civo;
+
+import de.bergerrosenstock.civo.CivoObjectStorage.StoredObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ObjectCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private ObjectCache cache(long maxBytes) {
+        return new ObjectCache(new ObjectCacheConfig(maxBytes, Duration.ofSeconds(10)), clock::get);
+    }
+
+    private static StoredObject object(int size) {
+        return new StoredObject(new byte[size], "application/octet-stream", Map.of(), "etag");
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        ObjectCache cache = cache(100);
+        assertNull(cache.get("a"));
+        cache.put("a", object(10), cache.generation());
+        assertNotNull(cache.get("a"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(10, stats.bytes());
+    }
+
+    @Test
+    public void dropsExpiredEntriesWithoutEtag() {
+        ObjectCache cache = cache(100);
+        cache.put("a", new StoredObject(new byte[10], "text/plain", Map.of()), cache.generation());
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().bytes());
+    }
+
+    @Test
+    public void keepsExpiredEntriesWithEtagForRevalidation() {
+        ObjectCache cache = cache(100);
+        StoredObject object = object(10);
+        cache.put("a", object, cache.generation());
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertNull(cache.get("a"));
+        assertSame(object, cache.getStale("a"));
+        cache.refresh("a", object, cache.generation());
+        assertSame(object, cache.get("a"));
+        assertEquals(1, cache.stats().revalidations());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedToStayWithinBytes() {
+        ObjectCache cache = cache(30);
+        cache.put("a", object(10), cache.generation());
+        cache.put("b", object(10), cache.generation());
+        cache.put("c", object(10), cache.generation());
+        cache.get("a");
+        cache.put("d", object(10), cache.generation());
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(30, cache.stats().bytes());
+    }
+
+    @Test
+    public void doesNotCacheReadsThatRacedWithAnInvalidation() {
+        ObjectCache cache = cache(100);
+        long generation = cache.generation();
+        cache.invalidate("a");
+        cache.put("a", object(10), generation);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void cachesReadsThatRacedWithAnInvalidationOfAnotherKey() {
+        ObjectCache cache = cache(100);
+        long generation = cache.generation();
+        cache.invalidate("b");
+        cache.put("a", object(10), generation);
+        assertNotNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,172 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.MinioAsyncClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ObjectListerTest {
+
+    /**
+     * Client that serves listings from fixed pages, keyed by prefix, delimiter and continuation token, optionally
+     * failing a page request once, and records every page request together with the requests in flight at the
+     * concurrency limiter.
+     */
+    private static final class StubClient extends CivoMinioAsyncClient {
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        final List<Integer> inFlight = new CopyOnWriteArrayList<>();
+        final Map<String, ListPage> pages;
+        final Set<String> failingOnce = ConcurrentHashMap.newKeySet();
+        ConcurrencyLimiter limiter;
+
+        StubClient(Map<String, ListPage> pages) {
+            super(MinioAsyncClient.builder()
+                    .endpoint("http://localhost:9000")
+                    .credentials("access", "secret")
+                    .build());
+            this.pages = pages;
+        }
+
+        @Override
+        ListPage listPage(String bucket, String region, String prefix, String delimiter, String continuationToken,
+                          int maxKeys) throws IOException {
+            String request = prefix + "|" + delimiter + "|" + continuationToken;
+            requests.add(request);
+            inFlight.add(limiter.stats().inFlight());
+            ListPage page = pages.get(request);
+            if (page == null || failingOnce.remove(request)) {
+                throw new IOException("Connection reset");
+            }
+            return page;
+        }
+    }
+
+    private static Item object(String name) {
+        return item(name, false);
+    }
+
+    private static Item directory(String name) {
+        return item(name, true);
+    }
+
+    private static Item item(String name, boolean directory) {
+        return new Item() {
+            @Override
+            public String objectName() {
+                return name;
+            }
+
+            @Override
+            public boolean isDir() {
+                return directory;
+            }
+        };
+    }
+
+    private static CivoMinioAsyncClient.ListPage page(String continuationToken, Item... items) {
+        return new CivoMinioAsyncClient.ListPage(Arrays.asList(items), continuationToken);
+    }
+
+    private static ObjectLister lister(StubClient client) {
+        return lister(client, RetryConfig.disabled());
+    }
+
+    private static ObjectLister lister(StubClient client, RetryConfig retryConfig) {
+        client.limiter = new ConcurrencyLimiter(
+                new ConcurrencyLimitConfig(4, 2, 100, Duration.ofSeconds(1), 0.5, Duration.ZERO));
+        return new ObjectLister(client, "bucket", "FRA1",
+                new RequestExecutor(new RetryPolicy(retryConfig), client.limiter, null, null));
+    }
+
+    private static List<String> names(Iterable<Result<Item>> results) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (Result<Item> result : results) {
+            names.add(result.get().objectName());
+        }
+        return names;
+    }
+
+    @Test
+    public void requestsEveryShortPageThroughTheLimiter() throws Exception {
+        StubClient client = new StubClient(Map.of(
+                "a/|null|null", page("t1", object("a/1"), object("a/2")),
+                "a/|null|t1", page("t2"),
+                "a/|null|t2", page("t3", object("a/3")),
+                "a/|null|t3", page(null, object("a/4"), object("a/5"))));
+        List<String> names = names(lister(client).listPages("a/", true));
+
+        assertEquals(List.of("a/1", "a/2", "a/3", "a/4", "a/5"), names);
+        assertEquals(List.of("a/|null|null", "a/|null|t1", "a/|null|t2", "a/|null|t3"), client.requests);
+        assertEquals(List.of(1, 1, 1, 1), client.inFlight);
+        assertEquals(0, client.limiter.stats().inFlight());
+    }
+
+    @Test
+    public void endsTheListingWithAFailedPage() throws Exception {
+        StubClient client = new StubClient(Map.of("|null|null", page("t1", object("1"))));
+        List<Result<Item>> results = new ArrayList<>();
+        lister(client).listPages("", true).forEach(results::add);
+
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(0).get().objectName());
+        assertThrows(IOException.class, () -> results.get(1).get());
+        assertEquals(List.of("|null|null", "|null|t1"), client.requests);
+    }
+
+    @Test
+    public void retriesAFailedPageWithTheSameContinuationToken() throws Exception {
+        StubClient client = new StubClient(Map.of(
+                "|/|null", page("t1", object("1"), directory("a/")),
+                "|/|t1", page(null, object("2"))));
+        client.failingOnce.add("|/|t1");
+        List<String> names = names(lister(client,
+                new RetryConfig(3, Duration.ZERO, Duration.ZERO, 0, 0.1)).listPages("", false));
+
+        assertEquals(List.of("1", "a/", "2"), names);
+        assertEquals(List.of("|/|null", "|/|t1", "|/|t1"), client.requests);
+    }
+
+    @Test
+    public void mergesObjectsAndCommonPrefixesOfAPageInKeyOrder() throws Exception {
+        StubClient client = new StubClient(Map.of(
+                "|/|null", page("t1", object("a/"), object("a/zz.txt"), directory("a/b/"), directory("a/y/")),
+                "|/|t1", page(null, object("b"), directory("b/")),
+                "a/b/|null|null", page(null, object("a/b/1")),
+                "a/y/|null|null", page(null, object("a/y/1")),
+                "b/|null|null", page(null, object("b/1"))));
+        ObjectLister lister = lister(client);
+
+        assertEquals(List.of("a/", "a/b/", "a/y/", "a/zz.txt", "b", "b/"), names(lister.listPages("", false)));
+        List<String> ordered = new OrderedShardIterator<>(lister.directoryShards(""), 2, 10, "list").stream()
+                .map(Item::objectName)
+                .toList();
+        assertEquals(List.of("a/", "a/b/1", "a/y/1", "a/zz.txt", "b", "b/1"), ordered);
+    }
+
+    @Test
+    public void shardsDirectoriesAndDirectObjects() throws Exception {
+        StubClient client = new StubClient(Map.of(
+                "|/|null", page("t1", object("1"), directory("a/")),
+                "|/|t1", page(null, object("2")),
+                "a/|null|null", page(null, object("a/1"))));
+        List<List<String>> shards = new ArrayList<>();
+        for (Iterable<Result<Item>> shard : lister(client).directoryShards("")) {
+            shards.add(names(shard));
+        }
+
+        assertEquals(List.of(List.of("1"), List.of("a/1"), List.of("2")), shards);
+    }
+}
@@ -0,0 +1,58 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.Result;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderedShardIteratorTest {
+
+    private static List<Result<Integer>> range(int from, int to) {
+        return IntStream.range(from, to).mapToObj(Result::new).toList();
+    }
+
+    @Test
+    public void concatenatesShardsInOrder() {
+        List<List<Result<Integer>>> shards = List.of(range(0, 700), List.of(), range(700, 1500), range(1500, 1600));
+        try (Stream<Integer> stream = new OrderedShardIterator<>(shards, 2, 100, "test").stream()) {
+            assertEquals(IntStream.range(0, 1600).boxed().toList(), stream.toList());
+        }
+    }
+
+    @Test
+    public void throwsErrorsOfLaterShards() {
+        List<List<Result<Integer>>> shards = List.of(range(0, 10), List.of(new Result<>(new IOException("boom"))));
+        try (Stream<Integer> stream = new OrderedShardIterator<>(shards, 2, 100, "test").stream()) {
+            assertThrows(UncheckedCivoObjectStorageException.class, stream::toList);
+        }
+    }
+
+    @Test
+    public void takesShardsOnlyWhenTheyAreStarted() {
+        AtomicInteger taken = new AtomicInteger();
+        Iterable<List<Result<Integer>>> shards = () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public List<Result<Integer>> next() {
+                int shard = taken.getAndIncrement();
+                return range(shard * 10, shard * 10 + 10);
+            }
+        };
+        try (Stream<Integer> stream = new OrderedShardIterator<>(shards, 2, 100, "test").stream()) {
+            assertEquals(IntStream.range(0, 25).boxed().toList(), stream.limit(25).toList());
+        }
+        assertEquals(4, taken.get());
+    }
+}
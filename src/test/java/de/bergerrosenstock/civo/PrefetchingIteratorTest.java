@@ -0,0 +1,46 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.Result;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrefetchingIteratorTest {
+
+    @Test
+    public void streamsAllElementsInOrder() {
+        List<Result<Integer>> source = IntStream.range(0, 2500).mapToObj(Result::new).collect(Collectors.toList());
+        try (Stream<Integer> stream = new PrefetchingIterator<>(source, 100, "test").stream()) {
+            assertEquals(IntStream.range(0, 2500).boxed().toList(), stream.toList());
+        }
+    }
+
+    @Test
+    public void throwsListingErrorsUnchecked() {
+        List<Result<Integer>> source = List.of(new Result<>(1), new Result<>(new IOException("boom")));
+        try (Stream<Integer> stream = new PrefetchingIterator<>(source, 100, "test").stream()) {
+            UncheckedCivoObjectStorageException e = assertThrows(UncheckedCivoObjectStorageException.class, stream::toList);
+            assertEquals(IOException.class, e.getCause().getCause().getClass());
+        }
+    }
+
+    @Test
+    public void drainsSeveralSourcesConcurrently() {
+        List<List<Result<Integer>>> sources = IntStream.range(0, 8)
+                .mapToObj(shard -> IntStream.range(shard * 500, (shard + 1) * 500).mapToObj(Result::new).toList())
+                .toList();
+        try (Stream<Integer> stream = new PrefetchingIterator<>(sources, 3, 10, "test").stream()) {
+            List<Integer> elements = stream.toList();
+            assertEquals(4000, elements.size());
+            assertEquals(new HashSet<>(IntStream.range(0, 4000).boxed().toList()), new HashSet<>(elements));
+        }
+    }
+}
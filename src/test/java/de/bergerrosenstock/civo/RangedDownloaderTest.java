@@ -0,0 +1,146 @@
+package de.bergerrosenstock.civo;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RangedDownloaderTest {
+
+    private static final int CHUNK_SIZE = RangedDownloadConfig.MIN_CHUNK_SIZE;
+
+    /**
+     * Client that answers range GETs from an in-memory object and records the requested ranges.
+     */
+    private static final class StubClient extends MinioClient {
+        final List<Long> offsets = new CopyOnWriteArrayList<>();
+        final List<Long> lengths = new CopyOnWriteArrayList<>();
+        final List<String> etags = new CopyOnWriteArrayList<>();
+        final byte[] data;
+
+        StubClient(byte[] data) {
+            super(MinioClient.builder()
+                    .endpoint("http://localhost:9000")
+                    .credentials("access", "secret")
+                    .build());
+            this.data = data;
+        }
+
+        @Override
+        public GetObjectResponse getObject(GetObjectArgs args) {
+            etags.add(args.matchETag());
+            offsets.add(args.offset());
+            lengths.add(args.length());
+            return new GetObjectResponse(Headers.of(), args.bucket(), null, args.object(),
+                    new ByteArrayInputStream(data, args.offset().intValue(), args.length().intValue()));
+        }
+    }
+
+    private static StatObjectResponse stat(int size) {
+        return new StatObjectResponse(Headers.of("ETag", "\"etag\"", "Content-Length", String.valueOf(size),
+                "Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT"), "bucket", "FRA1", "key");
+    }
+
+    private static RangedDownloader downloader(StubClient client) {
+        return new RangedDownloader(client, "bucket", new RangedDownloadConfig(CHUNK_SIZE, 3),
+                new RequestExecutor(new RetryPolicy(RetryConfig.disabled()), null, null, null));
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    @Test
+    public void writesTheLastPartialChunkIntoAHeapBuffer() throws Exception {
+        byte[] data = data(3 * CHUNK_SIZE + 100);
+        StubClient client = new StubClient(data);
+        ByteBuffer target = ByteBuffer.allocate(data.length + 20).position(10);
+        downloader(client).download("key", stat(data.length), RangedDownloader.into(target));
+
+        assertEquals(10, target.position());
+        assertArrayEquals(data, Arrays.copyOfRange(target.array(), 10, 10 + data.length));
+        assertEquals(4, client.offsets.size());
+        assertTrue(client.lengths.contains(100L));
+        assertTrue(client.offsets.contains(3L * CHUNK_SIZE));
+        assertEquals(List.of("etag", "etag", "etag", "etag"), client.etags);
+    }
+
+    @Test
+    public void writesTheLastPartialChunkIntoADirectBuffer() throws Exception {
+        byte[] data = data(2 * CHUNK_SIZE + 1);
+        ByteBuffer target = ByteBuffer.allocateDirect(data.length);
+        downloader(new StubClient(data)).download("key", stat(data.length), RangedDownloader.into(target));
+
+        byte[] written = new byte[data.length];
+        target.get(written);
+        assertArrayEquals(data, written);
+    }
+
+    @Test
+    public void writesTheLastPartialChunkIntoAFile() throws Exception {
+        byte[] data = data(2 * CHUNK_SIZE + 12345);
+        Path file = Files.createTempFile("ranged", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                downloader(new StubClient(data)).download("key", stat(data.length), RangedDownloader.into(channel));
+            }
+            assertArrayEquals(data, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void sendsNoRequestsForAZeroLengthObject() throws Exception {
+        StubClient client = new StubClient(new byte[0]);
+        ByteBuffer target = ByteBuffer.allocate(0);
+        downloader(client).download("key", stat(0), RangedDownloader.into(target));
+
+        Path file = Files.createTempFile("ranged", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                downloader(client).download("key", stat(0), RangedDownloader.into(channel));
+            }
+            assertEquals(0, Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals(0, client.offsets.size());
+        assertEquals(0, target.position());
+    }
+
+    @Test
+    public void failsWhenTheBufferIsTooSmall() {
+        byte[] data = data(CHUNK_SIZE + 10);
+        CivoObjectStorageException heap = assertThrows(CivoObjectStorageException.class,
+                () -> downloader(new StubClient(data)).download("key", stat(data.length),
+                        RangedDownloader.into(ByteBuffer.allocate(data.length + 5).position(6))));
+        assertEquals(IllegalArgumentException.class, heap.getCause().getClass());
+
+        CivoObjectStorageException direct = assertThrows(CivoObjectStorageException.class,
+                () -> downloader(new StubClient(data)).download("key", stat(data.length),
+                        RangedDownloader.into(ByteBuffer.allocateDirect(data.length - 1))));
+        assertEquals(IllegalArgumentException.class, direct.getCause().getClass());
+    }
+}
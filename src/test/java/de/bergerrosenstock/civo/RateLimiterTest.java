@@ -0,0 +1,85 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private RateLimiter limiter(OperationClass operation, RateLimit limit) {
+        return new RateLimiter(Map.of(operation, limit), clock::get);
+    }
+
+    @Test
+    public void rejectsRequestsBeyondTheBurstWithoutWaiting() throws Exception {
+        RateLimiter limiter = limiter(OperationClass.LIST, new RateLimit(2, 0, Duration.ZERO));
+        limiter.acquire(OperationClass.LIST, 0);
+        limiter.acquire(OperationClass.LIST, 0);
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(OperationClass.LIST, 0));
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        limiter.acquire(OperationClass.LIST, 0);
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(OperationClass.LIST, 0));
+    }
+
+    @Test
+    public void tryAcquireTakesOnlyAvailableBudget() throws Exception {
+        RateLimiter limiter = limiter(OperationClass.READ, new RateLimit(1, 0, Duration.ofSeconds(5)));
+        assertTrue(limiter.tryAcquire(OperationClass.READ, 0));
+        assertFalse(limiter.tryAcquire(OperationClass.READ, 0));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(limiter.tryAcquire(OperationClass.READ, 0));
+        assertTrue(limiter.tryAcquire(OperationClass.WRITE, 0));
+    }
+
+    @Test
+    public void leavesOtherOperationClassesUnlimited() throws Exception {
+        RateLimiter limiter = limiter(OperationClass.WRITE, new RateLimit(1, 0, Duration.ZERO));
+        limiter.acquire(OperationClass.WRITE, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(OperationClass.READ, 1_000_000);
+        }
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(OperationClass.WRITE, 0));
+    }
+
+    @Test
+    public void admitsLargeBodiesOnAFullBucketAndChargesTheDebt() throws Exception {
+        RateLimiter limiter = limiter(OperationClass.WRITE, new RateLimit(0, 100, Duration.ZERO));
+        limiter.acquire(OperationClass.WRITE, 1000);
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(OperationClass.WRITE, 1));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        limiter.acquire(OperationClass.WRITE, 1);
+    }
+
+    @Test
+    public void chargedReadBytesDelayFollowingReads() throws Exception {
+        RateLimiter limiter = limiter(OperationClass.READ, new RateLimit(0, 100, Duration.ZERO));
+        limiter.acquire(OperationClass.READ, 0);
+        limiter.charge(OperationClass.READ, 150);
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(OperationClass.READ, 1));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        limiter.acquire(OperationClass.READ, 1);
+    }
+
+    @Test
+    public void waitsForTokensWithinTheMaximumWait() throws Exception {
+        RateLimiter limiter = new RateLimiter(
+                Map.of(OperationClass.DELETE, new RateLimit(100, 0, Duration.ofSeconds(1))));
+        long start = System.nanoTime();
+        for (int i = 0; i < 105; i++) {
+            limiter.acquire(OperationClass.DELETE, 0);
+        }
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos());
+    }
+}
@@ -0,0 +1,85 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.security.InvalidKeyException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+
+    private static RetryPolicy policy(int maxAttempts, double budgetRatio) {
+        return new RetryPolicy(new RetryConfig(maxAttempts, Duration.ZERO, Duration.ZERO, 0, budgetRatio));
+    }
+
+    @Test
+    public void retriesTransientFailuresUpToMaxAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        String result = policy(3, 0.1).execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("connection reset");
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+
+        calls.set(0);
+        assertThrows(IOException.class, () -> policy(2, 0.1).execute(() -> {
+            calls.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void doesNotRetryFatalFailuresOrUnreplayableBodies() {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = policy(3, 0.1);
+        assertThrows(InvalidKeyException.class, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw new InvalidKeyException("bad key");
+        }));
+        assertThrows(IOException.class, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw new IOException("connection reset");
+        }, null));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void stopsRetryingWhenBudgetIsSpent() {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = policy(2, 0);
+        for (int i = 0; i < RetryConfig.BUDGET_CAPACITY + 5; i++) {
+            assertThrows(IOException.class, () -> policy.execute(() -> {
+                calls.incrementAndGet();
+                throw new IOException("connection reset");
+            }));
+        }
+        assertEquals(2 * RetryConfig.BUDGET_CAPACITY + 5, calls.get());
+    }
+
+    @Test
+    public void classifiesIoFailures() {
+        assertTrue(RetryPolicy.isRetryable(new IOException("connection reset")));
+        assertTrue(RetryPolicy.isRetryable(new SocketTimeoutException("timeout")));
+        assertFalse(RetryPolicy.isRetryable(new InvalidKeyException("bad key")));
+    }
+
+    @Test
+    public void capsExponentialDelay() {
+        RetryPolicy policy = new RetryPolicy(
+                new RetryConfig(10, Duration.ofMillis(100), Duration.ofSeconds(1), 0, 0.1));
+        assertEquals(Duration.ofMillis(100), policy.delay(1));
+        assertEquals(Duration.ofMillis(400), policy.delay(3));
+        assertEquals(Duration.ofSeconds(1), policy.delay(8));
+    }
+}
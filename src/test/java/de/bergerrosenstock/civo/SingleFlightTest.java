@@ -0,0 +1,163 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(value -> value + "-shared");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> flights.execute("a", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            })));
+            started.await();
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> flights.execute("a", () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+        }
+        assertEquals(1, calls.get());
+        for (Future<String> result : results) {
+            assertEquals("value-shared", result.get());
+        }
+    }
+
+    @Test
+    public void startsNewCallAfterPreviousOneCompleted() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(value -> value);
+        assertEquals("first", flights.execute("a", () -> "first"));
+        assertEquals("second", flights.execute("a", () -> "second"));
+        assertThrows(CivoObjectStorageException.class, () -> flights.execute("a", () -> {
+            throw new CivoObjectStorageException("failed");
+        }));
+        assertEquals("third", flights.execute("a", () -> "third"));
+    }
+
+    @Test
+    public void waitingCallerCanBeInterrupted() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(value -> value);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flights.execute("a", () -> {
+                started.countDown();
+                await(release);
+                return "value";
+            }));
+            started.await();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            Thread waiter = Thread.ofVirtual().start(() -> {
+                assertThrows(CivoObjectStorageException.class, () -> flights.execute("a", () -> "other"));
+                interrupted.set(Thread.currentThread().isInterrupted());
+            });
+            Thread.sleep(50);
+            waiter.interrupt();
+            waiter.join(5000);
+            assertTrue(interrupted.get());
+
+            release.countDown();
+            assertEquals("value", leader.get());
+        }
+    }
+
+    @Test
+    public void interruptOfTheLeaderDoesNotFailWaitingCallers() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(value -> value);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flights.execute("a", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                    return "never";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CivoObjectStorageException("Interrupted", e);
+                }
+            }));
+            started.await();
+            Future<String> waiter = executor.submit(() -> flights.execute("a", () -> {
+                calls.incrementAndGet();
+                return "retried";
+            }));
+            Thread.sleep(50);
+            leader.cancel(true);
+
+            assertEquals("retried", waiter.get());
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    public void waitingCallersDoNotSeeChangesOfTheLeader() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        SingleFlight<StringBuilder> flights = new SingleFlight<>(value -> {
+            if (Thread.currentThread().getName().equals("waiter")) {
+                await(changed);
+            }
+            return new StringBuilder(value);
+        });
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<StringBuilder> leader = executor.submit(() -> flights.execute("a", () -> {
+                started.countDown();
+                await(release);
+                return new StringBuilder("value");
+            }));
+            started.await();
+            AtomicReference<StringBuilder> shared = new AtomicReference<>();
+            Thread waiter = Thread.ofVirtual().name("waiter").start(() -> {
+                try {
+                    shared.set(flights.execute("a", () -> new StringBuilder("other")));
+                } catch (CivoObjectStorageException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(50);
+            release.countDown();
+            leader.get().append("-changed");
+            changed.countDown();
+            waiter.join(5000);
+
+            assertEquals("value-changed", leader.get().toString());
+            assertEquals("value", shared.get().toString());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.bergerrosenstock.civo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class StatCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private StatCache cache(int maxEntries) {
+        return new StatCache(new StatCacheConfig(maxEntries, Duration.ofSeconds(60), Duration.ofSeconds(5)), clock::get);
+    }
+
+    @Test
+    public void expiresMissingKeysAfterNegativeTtl() {
+        StatCache cache = cache(10);
+        cache.putMissing("a", null, cache.generation());
+        StatCache.Entry entry = cache.get("a");
+        assertNotNull(entry);
+        assertFalse(entry.exists());
+
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0.5, cache.stats().hitRate(), 0.0);
+    }
+
+    @Test
+    public void evictsBeyondMaxEntries() {
+        StatCache cache = cache(2);
+        cache.putMissing("a", null, cache.generation());
+        cache.putMissing("b", null, cache.generation());
+        cache.putMissing("c", null, cache.generation());
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void ignoresLookupsThatRacedWithAnInvalidation() {
+        StatCache cache = cache(10);
+        long generation = cache.generation();
+        cache.invalidate("a");
+        cache.putMissing("a", null, generation);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void keepsLookupsThatRacedWithAnInvalidationOfAnotherKey() {
+        StatCache cache = cache(10);
+        long generation = cache.generation();
+        cache.invalidate("b");
+        cache.putMissing("a", null, generation);
+        assertNotNull(cache.get("a"));
+    }
+}